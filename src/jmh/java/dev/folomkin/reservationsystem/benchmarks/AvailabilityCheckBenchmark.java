@@ -0,0 +1,68 @@
+package dev.folomkin.reservationsystem.benchmarks;
+
+import dev.folomkin.reservationsystem.reservations.ReservationMetrics;
+import dev.folomkin.reservationsystem.reservations.ReservationRepository;
+import dev.folomkin.reservationsystem.reservations.ReservationStatus;
+import dev.folomkin.reservationsystem.reservations.availability.AvailabilityLookupCoalescer;
+import dev.folomkin.reservationsystem.reservations.availability.ReservationAvailabilityService;
+import dev.folomkin.reservationsystem.reservations.availability.RoomAvailabilityIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Проверка конфликтов по индексу доступности; репозиторий подменён, в БД запросы не идут.
+// path = bitmap - ответ по битовой карте, intervals - карта выключена и ищутся пересечения интервалов
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailabilityCheckBenchmark {
+
+    private static final int ROOMS = 1_000;
+
+    @Param({"10", "100", "180"})
+    public int reservationsPerRoom;
+
+    @Param({"bitmap", "intervals"})
+    public String path;
+
+    private ReservationAvailabilityService availabilityService;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    @Setup
+    public void setUp() {
+        var repository = mock(ReservationRepository.class);
+        when(repository.findReservedIntervalsEndingAfter(eq(ReservationStatus.APPROVED), any()))
+                .thenReturn(BenchmarkData.approvedIntervals(ROOMS, reservationsPerRoom));
+        var meterRegistry = new SimpleMeterRegistry();
+        var lookups = new AvailabilityLookupCoalescer(meterRegistry, Duration.ZERO, 0);
+        var index = new RoomAvailabilityIndex(repository, lookups, true, path.equals("bitmap"), Duration.ZERO) {
+            @Override
+            protected LocalDate today() {
+                return BenchmarkData.START;
+            }
+        };
+        index.load();
+        var metrics = new ReservationMetrics(ObservationRegistry.NOOP, meterRegistry);
+        availabilityService = new ReservationAvailabilityService(repository, index, lookups, metrics);
+    }
+
+    @Benchmark
+    public boolean isReservationAvailable() {
+        long roomId = random.nextInt(ROOMS);
+        LocalDate startDate = BenchmarkData.START.plusDays(random.nextInt(2 * reservationsPerRoom));
+        return availabilityService.isReservationAvailable(roomId, startDate, startDate.plusDays(1));
+    }
+}
@@ -0,0 +1,70 @@
+package dev.folomkin.reservationsystem.benchmarks;
+
+import dev.folomkin.reservationsystem.reservations.Reservation;
+import dev.folomkin.reservationsystem.reservations.ReservationEntity;
+import dev.folomkin.reservationsystem.reservations.ReservationStatus;
+import dev.folomkin.reservationsystem.reservations.availability.ReservedInterval;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Детерминированный набор данных, чтобы результаты разных прогонов можно было сравнивать
+final class BenchmarkData {
+
+    // Фиксированная дата: данные не меняются от дня прогона. Индекс доступности в бенчмарках
+    // отсчитывает окно битовой карты от неё же
+    static final LocalDate START = LocalDate.of(2030, 1, 1);
+
+    private BenchmarkData() {
+    }
+
+    static List<ReservationEntity> entities(int count) {
+        var random = new SplittableRandom(42);
+        List<ReservationEntity> entities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            var startDate = START.plusDays(random.nextInt(365));
+            entities.add(new ReservationEntity(
+                    (long) i,
+                    random.nextLong(1, 100_000),
+                    random.nextLong(1, 10_000),
+                    startDate,
+                    startDate.plusDays(random.nextInt(1, 14)),
+                    ReservationStatus.values()[random.nextInt(ReservationStatus.values().length)]
+            ));
+        }
+        return entities;
+    }
+
+    static List<Reservation> reservations(int count) {
+        return entities(count).stream()
+                .map(entity -> new Reservation(
+                        entity.getId(),
+                        entity.getUserId(),
+                        entity.getRoomId(),
+                        entity.getStartDate(),
+                        entity.getEndDate(),
+                        entity.getStatus(),
+                        entity.getVersion()
+                ))
+                .toList();
+    }
+
+    // Непересекающиеся одобренные бронирования: каждая комната занята через одну ночь.
+    // Все они лежат в окне битовой карты (365 дней от START), иначе часть проверок уходит в интервалы
+    static List<ReservedInterval> approvedIntervals(int rooms, int reservationsPerRoom) {
+        if (2 * reservationsPerRoom > 365) {
+            throw new IllegalArgumentException("reservationsPerRoom does not fit the bitmap window: " + reservationsPerRoom);
+        }
+        List<ReservedInterval> intervals = new ArrayList<>(rooms * reservationsPerRoom);
+        long id = 0;
+        for (long roomId = 0; roomId < rooms; roomId++) {
+            for (int i = 0; i < reservationsPerRoom; i++) {
+                var startDate = START.plusDays(2L * i);
+                intervals.add(new ReservedInterval(id++, roomId, startDate, startDate.plusDays(1)));
+            }
+        }
+        return intervals;
+    }
+}
@@ -0,0 +1,49 @@
+package dev.folomkin.reservationsystem.benchmarks;
+
+import dev.folomkin.reservationsystem.reservations.Reservation;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationJsonBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int pageSize;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<Reservation> reservations;
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        var jsonMapper = JsonMapper.builder().build();
+        var listType = new TypeReference<List<Reservation>>() {
+        };
+        writer = jsonMapper.writerFor(listType);
+        reader = jsonMapper.readerFor(listType);
+        reservations = BenchmarkData.reservations(pageSize);
+        json = writer.writeValueAsBytes(reservations);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return writer.writeValueAsBytes(reservations);
+    }
+
+    @Benchmark
+    public List<Reservation> deserialize() {
+        return reader.readValue(json);
+    }
+}
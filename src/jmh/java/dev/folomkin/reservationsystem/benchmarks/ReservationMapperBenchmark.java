@@ -0,0 +1,59 @@
+package dev.folomkin.reservationsystem.benchmarks;
+
+import dev.folomkin.reservationsystem.reservations.Reservation;
+import dev.folomkin.reservationsystem.reservations.ReservationEntity;
+import dev.folomkin.reservationsystem.reservations.ReservationMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationMapperBenchmark {
+
+    private final ReservationMapper mapper = new ReservationMapper();
+
+    private ReservationEntity entity;
+    private Reservation reservation;
+
+    @Setup
+    public void setUp() {
+        entity = BenchmarkData.entities(1).getFirst();
+        reservation = BenchmarkData.reservations(1).getFirst();
+    }
+
+    @Benchmark
+    public Reservation toDomain() {
+        return mapper.toDomain(entity);
+    }
+
+    @Benchmark
+    public ReservationEntity toEntity() {
+        return mapper.toEntity(reservation);
+    }
+
+    // Отображение страницы результатов searchAllByFilter: entity -> Reservation
+    @State(Scope.Benchmark)
+    public static class SearchPage {
+
+        @Param({"10", "100", "1000"})
+        public int pageSize;
+
+        public List<ReservationEntity> entities;
+
+        @Setup
+        public void setUp() {
+            entities = BenchmarkData.entities(pageSize);
+        }
+    }
+
+    @Benchmark
+    public List<Reservation> mapSearchPage(SearchPage page) {
+        return page.entities.stream().map(mapper::toDomain).toList();
+    }
+}
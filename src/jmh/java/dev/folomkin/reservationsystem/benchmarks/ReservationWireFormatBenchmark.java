@@ -0,0 +1,96 @@
+package dev.folomkin.reservationsystem.benchmarks;
+
+import dev.folomkin.reservationsystem.reservations.Reservation;
+import dev.folomkin.reservationsystem.reservations.ReservationCborModule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// JSON против компактного CBOR для страницы броней: время записи/чтения и размер
+// тела с gzip и без (вторичные результаты bodySize:bytes и bodySize:gzipBytes)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationWireFormatBenchmark {
+
+    @Param({"json", "cbor"})
+    public String format;
+
+    @Param({"100", "1000"})
+    public int pageSize;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private List<Reservation> reservations;
+    private byte[] body;
+
+    // EVENTS не делятся на время, но суммируются по итерациям - значение итерации делится на их число
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class BodySize {
+        public double bytes;
+        public double gzipBytes;
+        private int iterations;
+
+        @Setup
+        public void setUp(BenchmarkParams params) {
+            iterations = params.getMeasurement().getCount();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        ObjectMapper mapper = format.equals("cbor")
+                ? CBORMapper.builder().addModule(new ReservationCborModule()).build()
+                : JsonMapper.builder().build();
+        var listType = new TypeReference<List<Reservation>>() {
+        };
+        writer = mapper.writerFor(listType);
+        reader = mapper.readerFor(listType);
+        reservations = BenchmarkData.reservations(pageSize);
+        body = writer.writeValueAsBytes(reservations);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return writer.writeValueAsBytes(reservations);
+    }
+
+    // То, что делает сервер при server.compression для больших страниц
+    @Benchmark
+    public byte[] serializeGzip() throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var gzip = new GZIPOutputStream(bytes)) {
+            writer.writeValue(gzip, reservations);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public void bodySize(BodySize size) throws IOException {
+        size.bytes = (double) body.length / size.iterations;
+        size.gzipBytes = (double) serializeGzip().length / size.iterations;
+    }
+
+    @Benchmark
+    public List<Reservation> deserialize() {
+        return reader.readValue(body);
+    }
+}
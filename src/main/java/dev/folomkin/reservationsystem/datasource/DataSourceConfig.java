@@ -0,0 +1,61 @@
+package dev.folomkin.reservationsystem.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBooleanProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+// Пулы primary (spring.datasource.*) и, при включённой реплике, replica (reservation.datasource.replica.*).
+// LazyConnectionDataSourceProxy берёт физическое соединение только на первом SQL, поэтому
+// транзакция, отвеченная из индекса или кэша, соединение не занимает, а к моменту первого
+// запроса уже известно, read-only ли она - такие транзакции уходят на реплику
+@Configuration
+public class DataSourceConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSourceConfig.class);
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        var dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    // Свойства пула Hikari напрямую: jdbc-url, username, password, maximum-pool-size, ...
+    @Bean
+    @ConditionalOnBooleanProperty("reservation.datasource.replica.enabled")
+    @ConfigurationProperties("reservation.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        var dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") ObjectProvider<DataSource> replica,
+            ReadYourWritesGuard guard
+    ) {
+        var dataSource = new LazyConnectionDataSourceProxy(primary);
+        var replicaDataSource = replica.getIfAvailable();
+        if (replicaDataSource != null) {
+            dataSource.setReadOnlyDataSource(new ReadYourWritesDataSource(replicaDataSource, primary, guard));
+        }
+        log.info("Read-only transactions are routed to {}", replicaDataSource != null ? "replica" : "primary");
+        return dataSource;
+    }
+}
@@ -0,0 +1,30 @@
+package dev.folomkin.reservationsystem.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Источник для read-only транзакций: реплика, либо primary, если текущий запрос уже писал
+class ReadYourWritesDataSource extends DelegatingDataSource {
+
+    private final DataSource primary;
+    private final ReadYourWritesGuard guard;
+
+    ReadYourWritesDataSource(DataSource replica, DataSource primary, ReadYourWritesGuard guard) {
+        super(replica);
+        this.primary = primary;
+        this.guard = guard;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return guard.requestWrote() ? primary.getConnection() : super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return guard.requestWrote() ? primary.getConnection(username, password) : super.getConnection(username, password);
+    }
+}
@@ -0,0 +1,47 @@
+package dev.folomkin.reservationsystem.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Запрос, который уже закоммитил запись, дальше читает с primary: реплика могла
+// ещё не догнать только что записанные данные. Флаг живёт в пределах одного HTTP-запроса
+@Component
+public class ReadYourWritesGuard extends OncePerRequestFilter implements TransactionExecutionListener {
+
+    private static final ThreadLocal<boolean[]> REQUEST_WROTE = new ThreadLocal<>();
+
+    public boolean requestWrote() {
+        var wrote = REQUEST_WROTE.get();
+        return wrote != null && wrote[0];
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        var wrote = REQUEST_WROTE.get();
+        if (wrote != null && commitFailure == null && !transaction.isReadOnly()) {
+            wrote[0] = true;
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        REQUEST_WROTE.set(new boolean[1]);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            REQUEST_WROTE.remove();
+        }
+    }
+}
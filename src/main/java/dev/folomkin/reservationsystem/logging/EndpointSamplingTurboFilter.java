@@ -0,0 +1,94 @@
+package dev.folomkin.reservationsystem.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Пропускает каждое rate-е событие ниже WARN для каждого шаблона сообщения отдельно.
+// Сэмплируются только логи входа в эндпоинт - шаблоны с префиксом templatePrefix ("Called "),
+// логи фоновых задач и итогов операций пишутся всегда. У каждого эндпоинта свой шаблон
+// ("Called getReservationById: id={}"), поэтому редкие эндпоинты не вытесняются частыми.
+// Решение принимается до форматирования сообщения, отброшенное событие почти ничего не стоит.
+// WARN и ERROR не сэмплируются
+public class EndpointSamplingTurboFilter extends TurboFilter {
+
+    // Защита от неограниченного роста, если кто-то логирует не константный шаблон
+    private static final int MAX_TEMPLATES = 1_000;
+
+    private String loggerPrefix = "dev.folomkin.reservationsystem";
+    private String templatePrefix = "Called ";
+    private int rate = 1;
+    private final Map<String, Integer> endpointRates = new LinkedHashMap<>();
+    private final ConcurrentHashMap<String, Sampler> samplers = new ConcurrentHashMap<>();
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (format == null || level == null || level.isGreaterOrEqual(Level.WARN)
+                || !format.startsWith(templatePrefix) || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        var sampler = samplers.get(format);
+        if (sampler == null) {
+            if (samplers.size() >= MAX_TEMPLATES) {
+                return FilterReply.NEUTRAL;
+            }
+            sampler = samplers.computeIfAbsent(format, key -> new Sampler(rateFor(key)));
+        }
+        return sampler.sample() ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    public void setTemplatePrefix(String templatePrefix) {
+        this.templatePrefix = templatePrefix;
+    }
+
+    public void setRate(int rate) {
+        this.rate = rate;
+    }
+
+    // <endpointRate>Called getReservationById=100</endpointRate>: шаблоны с этим префиксом
+    public void addEndpointRate(String endpointRate) {
+        int separator = endpointRate.lastIndexOf('=');
+        if (separator < 0) {
+            addError("Expected <template prefix>=<rate>, got: " + endpointRate);
+            return;
+        }
+        endpointRates.put(
+                endpointRate.substring(0, separator).trim(),
+                Integer.parseInt(endpointRate.substring(separator + 1).trim())
+        );
+    }
+
+    private int rateFor(String format) {
+        for (var endpointRate : endpointRates.entrySet()) {
+            if (format.startsWith(endpointRate.getKey())) {
+                return endpointRate.getValue();
+            }
+        }
+        return rate;
+    }
+
+    private static final class Sampler {
+
+        private final int rate;
+        private final AtomicLong counter = new AtomicLong();
+
+        Sampler(int rate) {
+            this.rate = rate;
+        }
+
+        boolean sample() {
+            return rate <= 1 || counter.getAndIncrement() % rate == 0;
+        }
+    }
+}
@@ -20,6 +20,8 @@ public record Reservation(
         @FutureOrPresent
         @NotNull
         LocalDate endDate,
-        ReservationStatus status
+        ReservationStatus status,
+        // Версия для ETag/If-Match; во входящих запросах игнорируется
+        Long version
 ) {
 }
@@ -0,0 +1,106 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import dev.folomkin.reservationsystem.web.DatabaseBulkhead;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+// Переносит APPROVED и CANCELLED брони, закончившиеся раньше retention назад, в reservations_archive.
+// Пачки и ограничения те же, что у ReservationExpirySweeper. Чтение по id, поиск и выгрузка
+// видят архив через представление reservation_history
+@Component
+public class ReservationArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationArchiver.class);
+
+    private final ReservationRepository repository;
+    private final ReservationMetrics metrics;
+    private final DatabaseBulkhead bulkhead;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration retention;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Duration batchPause;
+
+    public ReservationArchiver(
+            ReservationRepository repository,
+            ReservationMetrics metrics,
+            DatabaseBulkhead bulkhead,
+            PlatformTransactionManager transactionManager,
+            @Value("${reservation.archive.enabled}") boolean enabled,
+            @Value("${reservation.archive.retention}") Duration retention,
+            @Value("${reservation.archive.batch-size}") int batchSize,
+            @Value("${reservation.archive.max-batches}") int maxBatches,
+            @Value("${reservation.archive.batch-pause}") Duration batchPause
+    ) {
+        this.repository = repository;
+        this.metrics = metrics;
+        this.bulkhead = bulkhead;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.batchPause = batchPause;
+    }
+
+    @Scheduled(fixedDelayString = "${reservation.archive.interval}")
+    public void archive() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int archived = metrics.observe("archiveFinishedReservations", this::archiveBatches);
+            metrics.recordArchived(archived);
+            if (archived > 0) {
+                log.info("Archived finished reservations: count={}", archived);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to archive finished reservations", e);
+        }
+    }
+
+    private int archiveBatches() {
+        var endedBefore = LocalDate.now().minusDays(retention.toDays());
+        int archived = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            if (batch > 0 && !pause()) {
+                break;
+            }
+            var permit = bulkhead.tryAcquire();
+            if (permit.isEmpty()) {
+                log.debug("Database is busy, archiving postponed: archived={}", archived);
+                break;
+            }
+            int count;
+            try (var ignored = permit.get()) {
+                Integer moved = transactionTemplate.execute(status ->
+                        repository.archiveFinishedBefore(endedBefore, batchSize));
+                count = moved != null ? moved : 0;
+            }
+            archived += count;
+            if (count < batchSize) {
+                break;
+            }
+        }
+        return archived;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(batchPause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// Элементы проверяет ReservationBatchService: ошибка элемента попадает в его результат, а не в 400
+public record ReservationBatchRequest(
+        @NotEmpty
+        @Size(max = 1000)
+        List<Reservation> reservations
+) {
+}
@@ -0,0 +1,18 @@
+package dev.folomkin.reservationsystem.reservations;
+
+// Результат по одному элементу пакета: index - позиция в запросе, при ошибке reservation = null
+public record ReservationBatchResult(
+        int index,
+        Long id,
+        Reservation reservation,
+        String error
+) {
+
+    public static ReservationBatchResult success(int index, Reservation reservation) {
+        return new ReservationBatchResult(index, reservation.id(), reservation, null);
+    }
+
+    public static ReservationBatchResult failure(int index, Long id, String error) {
+        return new ReservationBatchResult(index, id, null, error);
+    }
+}
@@ -0,0 +1,219 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import dev.folomkin.reservationsystem.reservations.availability.ReservedInterval;
+import dev.folomkin.reservationsystem.reservations.availability.RoomAvailabilityIndex;
+import dev.folomkin.reservationsystem.reservations.events.ReservationEventType;
+import dev.folomkin.reservationsystem.reservations.events.ReservationOutbox;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Пакетные операции выполняются в одной транзакции, ошибка элемента не откатывает остальные.
+// Вставки уходят JDBC-батчами (hibernate.jdbc.batch_size); переходы статусов - условными
+// UPDATE по одному id, как в ReservationService: параллельное изменение строки даёт
+// 0 обновлённых строк и ошибку этого элемента, а не откат всего пакета на flush
+@Service
+public class ReservationBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationBatchService.class);
+
+    private final ReservationRepository repository;
+    private final ReservationMapper mapper;
+    private final ReservationService reservationService;
+    private final RoomAvailabilityIndex availabilityIndex;
+    private final Cache reservationsCache;
+    private final ReservationOutbox outbox;
+    private final Validator validator;
+
+    public ReservationBatchService(
+            ReservationRepository repository,
+            ReservationMapper mapper,
+            ReservationService reservationService,
+            RoomAvailabilityIndex availabilityIndex,
+            CacheManager cacheManager,
+            ReservationOutbox outbox,
+            Validator validator
+    ) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.reservationService = reservationService;
+        this.availabilityIndex = availabilityIndex;
+        this.reservationsCache = cacheManager.getCache(ReservationCacheConfig.RESERVATIONS_CACHE);
+        this.outbox = outbox;
+        this.validator = validator;
+    }
+
+    @Transactional
+    public List<ReservationBatchResult> createReservations(List<Reservation> reservationsToCreate) {
+        var results = new ReservationBatchResult[reservationsToCreate.size()];
+        List<Integer> positions = new ArrayList<>();
+        List<ReservationEntity> entitiesToSave = new ArrayList<>();
+
+        for (int i = 0; i < reservationsToCreate.size(); i++) {
+            var reservationToCreate = reservationsToCreate.get(i);
+            var error = validate(reservationToCreate);
+            if (error != null) {
+                results[i] = ReservationBatchResult.failure(i, null, error);
+                continue;
+            }
+            var entityToSave = mapper.toEntity(reservationToCreate);
+            entityToSave.setStatus(ReservationStatus.PENDING);
+            positions.add(i);
+            entitiesToSave.add(entityToSave);
+        }
+
+        var saved = repository.saveAll(entitiesToSave);
+        List<Reservation> created = new ArrayList<>(saved.size());
+        for (int i = 0; i < saved.size(); i++) {
+            int position = positions.get(i);
+            var reservation = mapper.toDomain(saved.get(i));
+            created.add(reservation);
+            results[position] = ReservationBatchResult.success(position, reservation);
+        }
+        outbox.recordAll(ReservationEventType.CREATED, created);
+        log.info("Batch created reservations: requested={}, created={}", reservationsToCreate.size(), saved.size());
+        return Arrays.asList(results);
+    }
+
+    // Ограничения Reservation проверяются здесь, а не через @Valid: неверный элемент - ошибка элемента
+    private String validate(Reservation reservation) {
+        if (reservation == null) {
+            return "Reservation must not be null";
+        }
+        var violations = validator.validate(reservation);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        try {
+            reservationService.validateNewReservation(reservation);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Transactional
+    public List<ReservationBatchResult> approveReservations(List<Long> ids) {
+        var reservationsById = findAllById(ids);
+
+        // Комнаты блокируются в порядке возрастания id, чтобы параллельные пакеты не взаимоблокировались
+        reservationsById.values().stream()
+                .filter(reservation -> reservation.status() == ReservationStatus.PENDING)
+                .map(Reservation::roomId)
+                .collect(Collectors.toCollection(TreeSet::new))
+                .forEach(repository::lockRoom);
+
+        List<ReservationBatchResult> results = new ArrayList<>(ids.size());
+        List<Reservation> approved = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            var id = ids.get(i);
+            var reservation = reservationsById.get(id);
+            if (reservation == null) {
+                results.add(ReservationBatchResult.failure(i, id, "Not found reservation by id = " + id));
+                continue;
+            }
+            if (reservation.status() != ReservationStatus.PENDING) {
+                results.add(ReservationBatchResult.failure(i, id, "Cannot approve reservation status" + reservation.status()));
+                continue;
+            }
+            // Одобренные ранее в этом пакете видны проверке конфликтов в том же UPDATE
+            if (repository.approveIfNoConflicts(id, reservation.version()) == 0) {
+                results.add(ReservationBatchResult.failure(i, id, approveFailure(reservation)));
+                continue;
+            }
+            var approvedReservation = withStatus(reservation, ReservationStatus.APPROVED, reservation.version() + 1);
+            reservationsCache.evict(id);
+            availabilityIndex.add(new ReservedInterval(
+                    reservation.id(), reservation.roomId(), reservation.startDate(), reservation.endDate()
+            ));
+            approved.add(approvedReservation);
+            results.add(ReservationBatchResult.success(i, approvedReservation));
+        }
+        if (!approved.isEmpty()) {
+            outbox.recordAll(ReservationEventType.APPROVED, approved);
+        }
+        return results;
+    }
+
+    @Transactional
+    public List<ReservationBatchResult> cancelReservations(List<Long> ids) {
+        var reservationsById = findAllById(ids);
+
+        List<ReservationBatchResult> results = new ArrayList<>(ids.size());
+        List<Reservation> cancelled = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            var id = ids.get(i);
+            var reservation = reservationsById.get(id);
+            if (reservation == null) {
+                results.add(ReservationBatchResult.failure(i, id, "Not found reservation by id " + id));
+                continue;
+            }
+            if (repository.setStatus(id, ReservationStatus.PENDING, null, ReservationStatus.CANCELLED) == 0) {
+                var current = repository.findReservationById(id).orElse(reservation);
+                results.add(ReservationBatchResult.failure(i, id, cancelFailure(current)));
+                continue;
+            }
+            reservationsCache.evict(id);
+            // Снимок после UPDATE: даты могли измениться до отмены
+            var cancelledReservation = repository.findReservationById(id)
+                    .orElseGet(() -> withStatus(reservation, ReservationStatus.CANCELLED, reservation.version() + 1));
+            cancelled.add(cancelledReservation);
+            results.add(ReservationBatchResult.success(i, cancelledReservation));
+        }
+        if (!cancelled.isEmpty()) {
+            outbox.recordAll(ReservationEventType.CANCELLED, cancelled);
+        }
+        return results;
+    }
+
+    // Условный UPDATE не затронул строку: статус или версия сменились после чтения, иначе конфликт
+    private String approveFailure(Reservation reservation) {
+        var current = repository.findReservationById(reservation.id()).orElse(null);
+        if (current == null) {
+            return "Not found reservation by id = " + reservation.id();
+        }
+        if (current.status() != ReservationStatus.PENDING) {
+            return "Cannot approve reservation status" + current.status();
+        }
+        if (!current.version().equals(reservation.version())) {
+            return "Reservation was modified concurrently, id=" + reservation.id();
+        }
+        return "Cannot approve reservation because of conflict";
+    }
+
+    private static String cancelFailure(Reservation current) {
+        if (current.status() == ReservationStatus.APPROVED) {
+            return "Cannot cancel approved reservation. Contact with manager please.";
+        }
+        return "Cannot cancel the reservation. Reservation was already canceled.";
+    }
+
+    private static Reservation withStatus(Reservation reservation, ReservationStatus status, Long version) {
+        return new Reservation(
+                reservation.id(),
+                reservation.userId(),
+                reservation.roomId(),
+                reservation.startDate(),
+                reservation.endDate(),
+                status,
+                version
+        );
+    }
+
+    // Проекции без сущностей в persistence context: изменения идут только условными UPDATE
+    private Map<Long, Reservation> findAllById(List<Long> ids) {
+        return repository.findReservationsByIds(new HashSet<>(ids)).stream()
+                .collect(Collectors.toMap(Reservation::id, Function.identity()));
+    }
+}
@@ -0,0 +1,25 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class ReservationCacheConfig {
+
+    public static final String RESERVATIONS_CACHE = "reservations";
+
+    // Вытеснение из кэша выполняется после коммита, иначе параллельное чтение
+    // успеет положить в кэш ещё не изменённую запись
+    @Bean
+    public CacheManager cacheManager(@Value("${reservation.cache.spec}") String cacheSpec) {
+        var caffeineCacheManager = new CaffeineCacheManager(RESERVATIONS_CACHE);
+        caffeineCacheManager.setCacheSpecification(cacheSpec);
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
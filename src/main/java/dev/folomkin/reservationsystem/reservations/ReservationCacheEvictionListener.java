@@ -0,0 +1,25 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import dev.folomkin.reservationsystem.reservations.events.ReservationEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// @CacheEvict вытесняет бронь только из кэша своего экземпляра. Изменения с других экземпляров
+// приходят событиями outbox через application-приёмник, и устаревшая версия (ETag) живёт
+// не дольше задержки диспетчера, а не весь TTL кэша
+@Component
+public class ReservationCacheEvictionListener {
+
+    private final Cache reservationsCache;
+
+    public ReservationCacheEvictionListener(CacheManager cacheManager) {
+        this.reservationsCache = cacheManager.getCache(ReservationCacheConfig.RESERVATIONS_CACHE);
+    }
+
+    @EventListener
+    public void onReservationEvent(ReservationEvent event) {
+        reservationsCache.evict(event.reservation().id());
+    }
+}
@@ -0,0 +1,23 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import org.springframework.boot.http.converter.autoconfigure.ServerHttpMessageConvertersCustomizer;
+import org.springframework.boot.jackson.autoconfigure.CborMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+@Configuration
+public class ReservationCborConfig {
+
+    @Bean
+    public CborMapperBuilderCustomizer reservationCborMapperCustomizer() {
+        return builder -> builder.addModule(new ReservationCborModule());
+    }
+
+    // Без этого конвертер по умолчанию создаёт свой CBORMapper и не видит модуль
+    @Bean
+    public ServerHttpMessageConvertersCustomizer reservationCborConverterCustomizer(CBORMapper cborMapper) {
+        return builder -> builder.withCborConverter(new JacksonCborHttpMessageConverter(cborMapper));
+    }
+}
@@ -0,0 +1,63 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.databind.DeserializationContext;
+import tools.jackson.databind.SerializationContext;
+import tools.jackson.databind.ValueDeserializer;
+import tools.jackson.databind.ValueSerializer;
+import tools.jackson.databind.annotation.JsonDeserialize;
+import tools.jackson.databind.annotation.JsonSerialize;
+import tools.jackson.databind.module.SimpleModule;
+import tools.jackson.dataformat.cbor.CBORGenerator;
+
+import java.time.LocalDate;
+
+// Компактное представление брони для application/cbor: массив
+// [id, userId, roomId, startDate, endDate, status, version] без имён полей,
+// даты - число дней от 1970-01-01 с тегом 100 (RFC 8943). JSON не затрагивается.
+public class ReservationCborModule extends SimpleModule {
+
+    // Тег CBOR для даты в днях от эпохи
+    static final int EPOCH_DAYS_TAG = 100;
+
+    public ReservationCborModule() {
+        super("ReservationCborModule");
+        setMixInAnnotation(Reservation.class, CompactReservation.class);
+    }
+
+    @JsonFormat(shape = JsonFormat.Shape.ARRAY)
+    @JsonPropertyOrder({"id", "userId", "roomId", "startDate", "endDate", "status", "version"})
+    private interface CompactReservation {
+
+        @JsonSerialize(using = EpochDaySerializer.class)
+        @JsonDeserialize(using = EpochDayDeserializer.class)
+        LocalDate startDate();
+
+        @JsonSerialize(using = EpochDaySerializer.class)
+        @JsonDeserialize(using = EpochDayDeserializer.class)
+        LocalDate endDate();
+    }
+
+    static class EpochDaySerializer extends ValueSerializer<LocalDate> {
+
+        @Override
+        public void serialize(LocalDate value, JsonGenerator generator, SerializationContext context) {
+            if (generator instanceof CBORGenerator cbor) {
+                cbor.writeTag(EPOCH_DAYS_TAG);
+            }
+            generator.writeNumber(value.toEpochDay());
+        }
+    }
+
+    // Тег парсер пропускает сам, остаётся число дней
+    static class EpochDayDeserializer extends ValueDeserializer<LocalDate> {
+
+        @Override
+        public LocalDate deserialize(JsonParser parser, DeserializationContext context) {
+            return LocalDate.ofEpochDay(parser.getLongValue());
+        }
+    }
+}
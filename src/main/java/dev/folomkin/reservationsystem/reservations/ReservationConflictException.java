@@ -0,0 +1,10 @@
+package dev.folomkin.reservationsystem.reservations;
+
+// Бронирование пересекается с одобренным или изменено параллельным запросом.
+// Как и ReservationStateException, ответ клиенту - 400
+public class ReservationConflictException extends ReservationStateException {
+
+    public ReservationConflictException(String message) {
+        super(message);
+    }
+}
@@ -1,82 +1,264 @@
 package dev.folomkin.reservationsystem.reservations;
 
+import dev.folomkin.reservationsystem.reservations.idempotency.ReservationIdempotencyService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
 @RequestMapping("/reservation")
 public class ReservationController {
 
-    private static final Logger log = LoggerFactory.getLogger(ReservationStatus.class);
+    private static final Logger log = LoggerFactory.getLogger(ReservationController.class);
+
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    private static final String APPLICATION_CBOR_SEQ_VALUE = "application/cbor-seq";
 
     private final ReservationService reservationService;
+    private final ReservationBatchService reservationBatchService;
+    private final JsonMapper jsonMapper;
+    private final CBORMapper cborMapper;
+    private final ReservationIdempotencyService idempotencyService;
 
-    public ReservationController(ReservationService reservationService) {
+    public ReservationController(
+            ReservationService reservationService,
+            ReservationBatchService reservationBatchService,
+            JsonMapper jsonMapper,
+            CBORMapper cborMapper,
+            ReservationIdempotencyService idempotencyService
+    ) {
         this.reservationService = reservationService;
+        this.reservationBatchService = reservationBatchService;
+        this.jsonMapper = jsonMapper;
+        this.cborMapper = cborMapper;
+        this.idempotencyService = idempotencyService;
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Reservation> getReservationById(@PathVariable("id") Long id) {
+    public ResponseEntity<Reservation> getReservationById(
+            @PathVariable("id") Long id,
+            WebRequest request
+    ) {
         log.info("Called getReservationById: id={}", id);
+        var reservation = reservationService.getReservationById(id);
+        var eTag = eTag(reservation);
+        // Совпал If-None-Match - уже выставлен 304, тело не пишем
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(reservationService.getReservationById(id));
+                .eTag(eTag)
+                .body(reservation);
     }
 
     @GetMapping
     public ResponseEntity<List<Reservation>> getAllReservations(
             @RequestParam(name = "roomId", required = false) Long roomId,
             @RequestParam(name = "userId", required = false) Long userId,
+            @RequestParam(name = "status", required = false) ReservationStatus status,
+            @RequestParam(name = "startDate", required = false) LocalDate startDate,
+            @RequestParam(name = "endDate", required = false) LocalDate endDate,
+            @RequestParam(name = "sortBy", required = false) String sortBy,
+            @RequestParam(name = "sortDirection", required = false) Sort.Direction sortDirection,
             @RequestParam(name = "pageSize", required = false) Integer pageSize,
             @RequestParam(name = "pageNumber", required = false) Integer pageNumber
     ) {
         log.info("Called getAllReservations");
         var filter = new ReservationSearchFilter(
-                roomId, userId, pageSize, pageNumber
+                roomId, userId, status, startDate, endDate, sortBy, sortDirection, pageSize, pageNumber
         );
         return ResponseEntity.ok(reservationService.searchAllByFilter(filter));
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<ReservationPage> searchReservations(
+            @RequestParam(name = "roomId", required = false) Long roomId,
+            @RequestParam(name = "userId", required = false) Long userId,
+            @RequestParam(name = "status", required = false) ReservationStatus status,
+            @RequestParam(name = "startDate", required = false) LocalDate startDate,
+            @RequestParam(name = "endDate", required = false) LocalDate endDate,
+            @RequestParam(name = "pageSize", required = false) Integer pageSize,
+            @RequestParam(name = "cursor", required = false) String cursor
+    ) {
+        log.info("Called searchReservations");
+        var filter = new ReservationSearchFilter(
+                roomId, userId, status, startDate, endDate, null, null, pageSize, null
+        );
+        return ResponseEntity.ok(reservationService.searchAllByFilterAfter(filter, cursor));
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportReservations(
+            @RequestParam(name = "roomId", required = false) Long roomId,
+            @RequestParam(name = "userId", required = false) Long userId,
+            @RequestParam(name = "status", required = false) ReservationStatus status,
+            @RequestParam(name = "startDate", required = false) LocalDate startDate,
+            @RequestParam(name = "endDate", required = false) LocalDate endDate
+    ) {
+        log.info("Called exportReservations");
+        var filter = new ReservationSearchFilter(
+                roomId, userId, status, startDate, endDate, null, null, null, null
+        );
+        var writer = jsonMapper.writerFor(Reservation.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(export(filter, writer));
+    }
+
+    // CBOR Sequence (RFC 8742): компактные брони подряд, без обрамляющего массива.
+    // Читать по одному значению из парсера: readValues примет первую бронь-массив за обёртку
+    @GetMapping(value = "/export", produces = APPLICATION_CBOR_SEQ_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportReservationsCbor(
+            @RequestParam(name = "roomId", required = false) Long roomId,
+            @RequestParam(name = "userId", required = false) Long userId,
+            @RequestParam(name = "status", required = false) ReservationStatus status,
+            @RequestParam(name = "startDate", required = false) LocalDate startDate,
+            @RequestParam(name = "endDate", required = false) LocalDate endDate
+    ) {
+        log.info("Called exportReservationsCbor");
+        var filter = new ReservationSearchFilter(
+                roomId, userId, status, startDate, endDate, null, null, null, null
+        );
+        var writer = cborMapper.writerFor(Reservation.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_CBOR_SEQ_VALUE))
+                .body(export(filter, writer));
+    }
+
+    // Выгрузка идёт в отдельном потоке; разрешение DatabaseBulkhead, взятое фильтром
+    // до ответа, держится до завершения асинхронного запроса
+    private StreamingResponseBody export(ReservationSearchFilter filter, ObjectWriter writer) {
+        return outputStream -> {
+            try (var sequence = writer.writeValues(outputStream)) {
+                reservationService.exportAllByFilter(filter, sequence::write);
+            }
+        };
+    }
+
     @PostMapping
     public ResponseEntity<Reservation> createReservation(
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
             @RequestBody @Valid Reservation reservationToCreate) {
         log.info("Called createReservation");
 
+        if (idempotencyKey == null) {
+            return ResponseEntity
+                    .status(HttpStatus.CREATED)
+                    .body(reservationService
+                            .createReservation(reservationToCreate)
+                    );
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 255) {
+            throw new IllegalArgumentException(IDEMPOTENCY_KEY + " must be 1..255 characters");
+        }
+        // Повтор получает тот же ответ, что и первый запрос
+        var creation = idempotencyService.createReservation(idempotencyKey, reservationToCreate);
         return ResponseEntity
                 .status(HttpStatus.CREATED)
-                .body(reservationService
-                        .createReservation(reservationToCreate)
-                );
+                .header(IDEMPOTENT_REPLAYED, String.valueOf(creation.replayed()))
+                .body(creation.reservation());
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<Reservation> updateReservation(
             @PathVariable("id") Long id,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody @Valid Reservation reservationToUpdate
     ) {
-        log.info("Called reservation id={}, reservationToUpdate={}", id, reservationToUpdate);
-        var updated = reservationService.updateReservation(id, reservationToUpdate);
-        return ResponseEntity.ok(updated);
+        log.info("Called updateReservation, id={}", id);
+        log.debug("Reservation to update: {}", reservationToUpdate);
+        var updated = reservationService.updateReservation(id, reservationToUpdate, parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(eTag(updated)).body(updated);
     }
 
     @DeleteMapping("/{id}/cancel")
-    public ResponseEntity<Void> deleteReservation(@PathVariable("id") Long id) {
+    public ResponseEntity<Void> deleteReservation(
+            @PathVariable("id") Long id,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
         log.info("Called method deleteReservation id={}", id);
-        reservationService.cancelReservation(id);
+        reservationService.cancelReservation(id, parseIfMatch(ifMatch));
         return ResponseEntity.status(HttpStatus.OK).build();
     }
 
 
     @PostMapping("/{id}/approve")
-    public ResponseEntity<Reservation> approveReservation(@PathVariable("id") Long id) {
+    public ResponseEntity<Reservation> approveReservation(
+            @PathVariable("id") Long id,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch
+    ) {
         log.info("Called method approveReservation, id={}", id);
-        var reservation = reservationService.approveReservation(id);
-        return ResponseEntity.ok(reservation);
+        var reservation = reservationService.approveReservation(id, parseIfMatch(ifMatch));
+        return ResponseEntity.ok().eTag(eTag(reservation)).body(reservation);
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<ReservationBatchResult>> createReservations(
+            @RequestBody @Valid ReservationBatchRequest request) {
+        log.info("Called createReservations, size={}", request.reservations().size());
+        return ResponseEntity.ok(reservationBatchService.createReservations(request.reservations()));
+    }
+
+    @PostMapping("/batch/approve")
+    public ResponseEntity<List<ReservationBatchResult>> approveReservations(
+            @RequestBody @Valid ReservationIdsRequest request) {
+        log.info("Called approveReservations, size={}", request.ids().size());
+        return ResponseEntity.ok(reservationBatchService.approveReservations(request.ids()));
+    }
+
+    @PostMapping("/batch/cancel")
+    public ResponseEntity<List<ReservationBatchResult>> cancelReservations(
+            @RequestBody @Valid ReservationIdsRequest request) {
+        log.info("Called cancelReservations, size={}", request.ids().size());
+        return ResponseEntity.ok(reservationBatchService.cancelReservations(request.ids()));
+    }
+
+    private static String eTag(Reservation reservation) {
+        return "\"" + reservation.version() + "\"";
+    }
+
+    // If-Match: "<version>" или список "1", "2"; "*" или отсутствие заголовка - обновление без проверки
+    // версии. If-Match сравнивает теги сильно (RFC 9110, 13.1.1), поэтому слабые W/"..." отклоняются
+    private static List<Long> parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return List.of();
+        }
+        List<Long> versions = new ArrayList<>();
+        for (var part : ifMatch.split(",")) {
+            var tag = part.trim();
+            if (tag.startsWith("W/")) {
+                throw new IllegalArgumentException("Weak entity tags are not allowed in If-Match: " + ifMatch);
+            }
+            if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+                throw new IllegalArgumentException("Invalid If-Match header: " + ifMatch);
+            }
+            try {
+                versions.add(Long.parseLong(tag.substring(1, tag.length() - 1)));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid If-Match header: " + ifMatch);
+            }
+        }
+        return versions;
     }
 }
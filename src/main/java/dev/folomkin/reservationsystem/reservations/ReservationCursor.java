@@ -0,0 +1,32 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Позиция последней выданной записи в порядке (startDate, id), для клиента - непрозрачная строка
+public record ReservationCursor(
+        LocalDate startDate,
+        Long id
+) {
+
+    public static ReservationCursor of(Reservation reservation) {
+        return new ReservationCursor(reservation.startDate(), reservation.id());
+    }
+
+    public static ReservationCursor decode(String cursor) {
+        try {
+            var decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            var parts = decoded.split(":", 2);
+            return new ReservationCursor(LocalDate.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public String encode() {
+        var raw = startDate + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
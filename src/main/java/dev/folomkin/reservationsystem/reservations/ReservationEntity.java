@@ -8,7 +8,9 @@ import java.time.LocalDate;
 @Entity
 public class ReservationEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // IDENTITY отключает батчинг вставок в Hibernate, поэтому sequence с выделением по 50 id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservations_seq")
+    @SequenceGenerator(name = "reservations_seq", sequenceName = "reservations_seq", allocationSize = 50)
     @Column(name = "id", nullable = false)
     private Long id;
 
@@ -28,6 +30,10 @@ public class ReservationEntity {
     @Column(name = "status", nullable = false)
     private ReservationStatus status;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public ReservationEntity() {
     }
 
@@ -94,4 +100,12 @@ public class ReservationEntity {
     public void setStatus(ReservationStatus status) {
         this.status = status;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,133 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import dev.folomkin.reservationsystem.reservations.events.ReservationEventType;
+import dev.folomkin.reservationsystem.reservations.events.ReservationOutbox;
+import dev.folomkin.reservationsystem.web.DatabaseBulkhead;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Отменяет PENDING брони старше pending-ttl. Каждая пачка - отдельная короткая транзакция,
+// между пачками пауза, а за прогон не больше max-batches пачек. Пачка берёт разрешение
+// DatabaseBulkhead без ожидания: при нехватке соединений прогон откладывается
+@Component
+public class ReservationExpirySweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationExpirySweeper.class);
+
+    private final ReservationRepository repository;
+    private final ReservationMapper mapper;
+    private final ReservationOutbox outbox;
+    private final ReservationMetrics metrics;
+    private final DatabaseBulkhead bulkhead;
+    private final Cache reservationsCache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration pendingTtl;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Duration batchPause;
+
+    public ReservationExpirySweeper(
+            ReservationRepository repository,
+            ReservationMapper mapper,
+            ReservationOutbox outbox,
+            ReservationMetrics metrics,
+            DatabaseBulkhead bulkhead,
+            CacheManager cacheManager,
+            PlatformTransactionManager transactionManager,
+            @Value("${reservation.expiry.enabled}") boolean enabled,
+            @Value("${reservation.expiry.pending-ttl}") Duration pendingTtl,
+            @Value("${reservation.expiry.batch-size}") int batchSize,
+            @Value("${reservation.expiry.max-batches}") int maxBatches,
+            @Value("${reservation.expiry.batch-pause}") Duration batchPause
+    ) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.outbox = outbox;
+        this.metrics = metrics;
+        this.bulkhead = bulkhead;
+        this.reservationsCache = cacheManager.getCache(ReservationCacheConfig.RESERVATIONS_CACHE);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.pendingTtl = pendingTtl;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.batchPause = batchPause;
+    }
+
+    @Scheduled(fixedDelayString = "${reservation.expiry.interval}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int cancelled = metrics.observe("expirePendingReservations", this::sweepBatches);
+            metrics.recordExpirySweep(cancelled);
+            if (cancelled > 0) {
+                log.info("Cancelled expired pending reservations: count={}", cancelled);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to cancel expired pending reservations", e);
+        }
+    }
+
+    private int sweepBatches() {
+        // Граница фиксируется на прогон, чтобы не гоняться за бронями, истекающими прямо сейчас
+        var createdBefore = Instant.now().minus(pendingTtl);
+        int cancelled = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            if (batch > 0 && !pause()) {
+                break;
+            }
+            var permit = bulkhead.tryAcquire();
+            if (permit.isEmpty()) {
+                log.debug("Database is busy, expiry sweep postponed: cancelled={}", cancelled);
+                break;
+            }
+            int count;
+            try (var ignored = permit.get()) {
+                count = cancelBatch(createdBefore);
+            }
+            cancelled += count;
+            if (count < batchSize) {
+                break;
+            }
+        }
+        return cancelled;
+    }
+
+    private int cancelBatch(Instant createdBefore) {
+        Integer count = transactionTemplate.execute(status -> {
+            List<Long> ids = repository.cancelPendingCreatedBefore(createdBefore, batchSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            var cancelled = repository.findAllById(ids).stream().map(mapper::toDomain).toList();
+            ids.forEach(reservationsCache::evict);
+            outbox.recordAll(ReservationEventType.CANCELLED, cancelled);
+            return ids.size();
+        });
+        return count != null ? count : 0;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(batchPause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
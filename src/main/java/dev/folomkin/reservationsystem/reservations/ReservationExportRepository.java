@@ -0,0 +1,10 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.stream.Stream;
+
+public interface ReservationExportRepository {
+
+    Stream<Reservation> streamAll(Specification<ReservationHistoryEntity> specification);
+}
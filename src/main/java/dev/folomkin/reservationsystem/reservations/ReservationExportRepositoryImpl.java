@@ -0,0 +1,43 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.stream.Stream;
+
+public class ReservationExportRepositoryImpl implements ReservationExportRepository {
+
+    private final EntityManager entityManager;
+
+    public ReservationExportRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // Проекция в record не попадает в persistence context, поэтому память не растёт с числом строк
+    @Override
+    public Stream<Reservation> streamAll(Specification<ReservationHistoryEntity> specification) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(Reservation.class);
+        var root = query.from(ReservationHistoryEntity.class);
+        query.select(cb.construct(
+                Reservation.class,
+                root.get("id"),
+                root.get("userId"),
+                root.get("roomId"),
+                root.get("startDate"),
+                root.get("endDate"),
+                root.get("status"),
+                root.get("version")
+        ));
+        var predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 1000)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
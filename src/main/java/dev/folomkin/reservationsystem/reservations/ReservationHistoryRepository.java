@@ -0,0 +1,24 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+// Поиск по рабочей таблице и архиву. Изменения идут только через ReservationRepository
+public interface ReservationHistoryRepository extends
+        Repository<ReservationHistoryEntity, Long>,
+        JpaSpecificationExecutor<ReservationHistoryEntity>,
+        ReservationExportRepository {
+
+    @Query("""
+            SELECT new dev.folomkin.reservationsystem.reservations.Reservation(
+                    r.id, r.userId, r.roomId, r.startDate, r.endDate, r.status, r.version
+            )
+            FROM ReservationHistoryEntity r
+                    WHERE r.id = :id
+            """)
+    Optional<Reservation> findReservationById(@Param("id") Long id);
+}
@@ -11,7 +11,20 @@ public class ReservationMapper {
                 reservationEntity.getRoomId(),
                 reservationEntity.getStartDate(),
                 reservationEntity.getEndDate(),
-                reservationEntity.getStatus()
+                reservationEntity.getStatus(),
+                reservationEntity.getVersion()
+        );
+    }
+
+    public Reservation toDomain(ReservationHistoryEntity reservationEntity) {
+        return new Reservation(
+                reservationEntity.getId(),
+                reservationEntity.getUserId(),
+                reservationEntity.getRoomId(),
+                reservationEntity.getStartDate(),
+                reservationEntity.getEndDate(),
+                reservationEntity.getStatus(),
+                reservationEntity.getVersion()
         );
     }
 
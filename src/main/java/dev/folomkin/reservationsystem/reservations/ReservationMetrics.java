@@ -0,0 +1,108 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Операции сервисов оборачиваются в Observation: получается таймер reservation.operation
+// с тегами operation/outcome и span, если подключён трейсинг
+@Component
+public class ReservationMetrics {
+
+    public static final String OPERATION_METRIC = "reservation.operation";
+
+    public static final String OK = "ok";
+    public static final String CONFLICT = "conflict";
+    public static final String NOT_FOUND = "not-found";
+    public static final String INVALID_STATE = "invalid-state";
+    public static final String INVALID_ARGUMENT = "invalid-argument";
+    public static final String ERROR = "error";
+
+    private final ObservationRegistry observationRegistry;
+    private final Counter availabilityConflicts;
+    private final DistributionSummary conflictingIds;
+    private final Counter expiredReservations;
+    private final DistributionSummary expiredPerRun;
+    private final Counter archivedReservations;
+
+    public ReservationMetrics(ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+        this.observationRegistry = observationRegistry;
+        this.availabilityConflicts = Counter.builder("reservation.availability.conflicts")
+                .description("Availability checks that found conflicting approved reservations")
+                .register(meterRegistry);
+        this.conflictingIds = DistributionSummary.builder("reservation.availability.conflicting.ids")
+                .description("Number of conflicting reservation ids per conflicting check")
+                .register(meterRegistry);
+        this.expiredReservations = Counter.builder("reservation.expiry.cancelled")
+                .description("Expired PENDING reservations cancelled by the sweeper")
+                .register(meterRegistry);
+        this.expiredPerRun = DistributionSummary.builder("reservation.expiry.cancelled.per.run")
+                .description("Expired PENDING reservations cancelled per sweeper run")
+                .register(meterRegistry);
+        this.archivedReservations = Counter.builder("reservation.archive.moved")
+                .description("Finished reservations moved to reservations_archive")
+                .register(meterRegistry);
+    }
+
+    public <T> T observe(String operation, Supplier<T> call) {
+        return observe(operation, call, result -> OK);
+    }
+
+    public <T> T observe(String operation, Supplier<T> call, Function<T, String> outcome) {
+        var observation = Observation.createNotStarted(OPERATION_METRIC, observationRegistry)
+                .lowCardinalityKeyValue("operation", operation)
+                .start();
+        try (var scope = observation.openScope()) {
+            T result = call.get();
+            observation.lowCardinalityKeyValue("outcome", outcome.apply(result));
+            return result;
+        } catch (RuntimeException e) {
+            observation.lowCardinalityKeyValue("outcome", outcomeOf(e));
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    public void observe(String operation, Runnable call) {
+        observe(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public void recordAvailabilityConflict(int conflictingIdsCount) {
+        availabilityConflicts.increment();
+        conflictingIds.record(conflictingIdsCount);
+    }
+
+    public void recordExpirySweep(int cancelled) {
+        expiredReservations.increment(cancelled);
+        expiredPerRun.record(cancelled);
+    }
+
+    public void recordArchived(int archived) {
+        archivedReservations.increment(archived);
+    }
+
+    private static String outcomeOf(RuntimeException e) {
+        return switch (e) {
+            case EntityNotFoundException ignored -> NOT_FOUND;
+            case ReservationConflictException ignored -> CONFLICT;
+            case ReservationVersionMismatchException ignored -> CONFLICT;
+            case OptimisticLockingFailureException ignored -> CONFLICT;
+            case IllegalStateException ignored -> INVALID_STATE;
+            case IllegalArgumentException ignored -> INVALID_ARGUMENT;
+            default -> ERROR;
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import jakarta.persistence.EntityNotFoundException;
+
+// Ожидаемый исход, а не сбой: стек не собирается, обработчик логирует только сообщение
+public class ReservationNotFoundException extends EntityNotFoundException {
+
+    public ReservationNotFoundException(Long id) {
+        super("Not found reservation by id = " + id);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
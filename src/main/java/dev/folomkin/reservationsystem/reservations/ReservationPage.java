@@ -0,0 +1,9 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import java.util.List;
+
+public record ReservationPage(
+        List<Reservation> items,
+        String nextCursor
+) {
+}
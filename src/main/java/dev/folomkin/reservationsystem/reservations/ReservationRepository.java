@@ -1,15 +1,21 @@
 package dev.folomkin.reservationsystem.reservations;
 
-import org.springframework.data.domain.Pageable;
+import dev.folomkin.reservationsystem.reservations.availability.ReservedInterval;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
-public interface ReservationRepository extends JpaRepository<ReservationEntity, Long> {
+public interface ReservationRepository extends
+        JpaRepository<ReservationEntity, Long>,
+        JpaSpecificationExecutor<ReservationEntity> {
 
 //    List<ReservationEntity> findAllByStatusIs(ReservationStatus status);
 
@@ -38,43 +44,263 @@ public interface ReservationRepository extends JpaRepository<ReservationEntity,
 //            @Param("status") ReservationStatus status
 //    );
 
+    // Переходы статусов - одним условным UPDATE. 0 строк означает, что бронирования
+    // нет, оно уже не в expectedStatus или версия не совпала; различить можно через findReservationById.
+    // expectedVersion = null - без проверки версии (запрос без If-Match)
     @Modifying
     @Query(""" 
             update ReservationEntity r
-            set r.status = :status 
+            set r.status = :status,
+            r.version = r.version + 1
             where r.id = :id
+            and r.status = :expectedStatus
+            and r.version = coalesce(:expectedVersion, r.version)
             """
     )
-    void setStatus(
+    int setStatus(
             @Param("id") Long id,
+            @Param("expectedStatus") ReservationStatus expectedStatus,
+            @Param("expectedVersion") Long expectedVersion,
             @Param("status") ReservationStatus reservationStatus);
 
 
+    // Возвращает новую версию, пустой список - строка не обновлена
+    @Query(value = """
+            UPDATE reservations
+            SET user_id = :userId,
+            room_id = :roomId,
+            start_date = :startDate,
+            end_date = :endDate,
+            version = version + 1
+            WHERE id = :id
+            AND status = 'PENDING'
+            AND version = COALESCE(CAST(:expectedVersion AS BIGINT), version)
+            RETURNING version
+            """, nativeQuery = true)
+    List<Long> updatePendingFields(
+            @Param("id") Long id,
+            @Param("expectedVersion") Long expectedVersion,
+            @Param("userId") Long userId,
+            @Param("roomId") Long roomId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+
+    // Одобрение с проверкой конфликтов в том же выражении; вызывается под lockRoom.
+    // version - прочитанная перед блокировкой, чтобы одобрить именно те даты, что проверялись
+    @Modifying
+    @Query(value = """
+            UPDATE reservations r
+            SET status = 'APPROVED',
+            version = r.version + 1
+            WHERE r.id = :id
+            AND r.status = 'PENDING'
+            AND r.version = :version
+            AND NOT EXISTS (
+                SELECT 1 FROM reservations c
+                WHERE c.room_id = r.room_id
+                AND daterange(c.start_date, c.end_date) && daterange(r.start_date, r.end_date)
+                AND c.status = 'APPROVED'
+            )
+            """, nativeQuery = true)
+    int approveIfNoConflicts(
+            @Param("id") Long id,
+            @Param("version") Long version
+    );
+
+
+    // Отмена истёкших PENDING одной пачкой. SKIP LOCKED пропускает строки, которые сейчас
+    // меняют пользовательские запросы: очистка не ждёт чужих блокировок и не задерживает их.
+    // Возвращает id отменённых броней
+    @Query(value = """
+            UPDATE reservations
+            SET status = 'CANCELLED',
+            version = version + 1
+            WHERE id IN (
+                SELECT id FROM reservations
+                WHERE status = 'PENDING'
+                AND created_at < :createdBefore
+                ORDER BY created_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING id
+            """, nativeQuery = true)
+    List<Long> cancelPendingCreatedBefore(
+            @Param("createdBefore") Instant createdBefore,
+            @Param("limit") int limit
+    );
+
+
+    // Перенос завершённых броней в архив одним выражением: строка видна либо в reservations,
+    // либо в reservations_archive. PENDING не переносятся - их отменяет ReservationExpirySweeper
+    @Modifying
+    @Query(value = """
+            WITH moved AS (
+                DELETE FROM reservations
+                WHERE id IN (
+                    SELECT id FROM reservations
+                    WHERE status <> 'PENDING'
+                    AND end_date < :endedBefore
+                    ORDER BY end_date
+                    LIMIT :limit
+                    FOR UPDATE SKIP LOCKED
+                )
+                RETURNING id, user_id, room_id, start_date, end_date, status, version, created_at
+            )
+            INSERT INTO reservations_archive
+                (id, user_id, room_id, start_date, end_date, status, version, created_at, archived_at)
+            SELECT id, user_id, room_id, start_date, end_date, status, version, created_at, now()
+            FROM moved
+            """, nativeQuery = true)
+    int archiveFinishedBefore(
+            @Param("endedBefore") LocalDate endedBefore,
+            @Param("limit") int limit
+    );
+
+
+    // Проекция без сущности в persistence context: последующий UPDATE не требует merge
+    @Query("""
+            SELECT new dev.folomkin.reservationsystem.reservations.Reservation(
+                    r.id, r.userId, r.roomId, r.startDate, r.endDate, r.status, r.version
+            )
+            FROM ReservationEntity r
+                    WHERE r.id = :id
+            """)
+    Optional<Reservation> findReservationById(@Param("id") Long id);
+
+
+    @Query("""
+            SELECT new dev.folomkin.reservationsystem.reservations.Reservation(
+                    r.id, r.userId, r.roomId, r.startDate, r.endDate, r.status, r.version
+            )
+            FROM ReservationEntity r
+                    WHERE r.id IN :ids
+            """)
+    List<Reservation> findReservationsByIds(@Param("ids") Collection<Long> ids);
+
+
+
+    // Транзакционная advisory-блокировка комнаты: одобрения одной комнаты идут по очереди,
+    // разных комнат - параллельно. Снимается при завершении транзакции
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(:roomId)", nativeQuery = true)
+    Integer lockRoom(@Param("roomId") Long roomId);
+
+
+    // Условие совпадает с ограничением reservations_approved_no_overlap (V2),
+    // поэтому поиск идёт по его частичному GiST-индексу
+    @Query(value = """
+            SELECT r.id FROM reservations r
+                    WHERE r.room_id = :roomId
+                    AND daterange(r.start_date, r.end_date) && daterange(:startDate, :endDate)
+                    AND r.status = 'APPROVED'
+            """, nativeQuery = true)
+    List<Long> findConflictReservationIds(
+            @Param("roomId") Long roomId,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate
+    );
+
+
+    @Query("""
+            SELECT new dev.folomkin.reservationsystem.reservations.availability.ReservedInterval(
+                    r.id, r.roomId, r.startDate, r.endDate
+            )
+            FROM ReservationEntity r
+                    WHERE r.status = :status
+                    AND r.endDate > :date
+            """)
+    List<ReservedInterval> findReservedIntervalsEndingAfter(
+            @Param("status") ReservationStatus status,
+            @Param("date") LocalDate date
+    );
+
 
     @Query("""
-            SELECT r.id FROM ReservationEntity r 
-                    WHERE r.roomId = :roomId
+            SELECT new dev.folomkin.reservationsystem.reservations.availability.ReservedInterval(
+                    r.id, r.roomId, r.startDate, r.endDate
+            )
+            FROM ReservationEntity r
+                    WHERE r.roomId IN :roomIds
                     AND :startDate < r.endDate
                     AND r.startDate < :endDate
                     AND r.status = :status
+                    ORDER BY r.roomId, r.startDate
             """)
-    List<Long> findConflictReservationIds(
-            @Param("roomId") Long roomId,
+    List<ReservedInterval> findReservedIntervals(
+            @Param("roomIds") Collection<Long> roomIds,
             @Param("startDate") LocalDate startDate,
             @Param("endDate") LocalDate endDate,
             @Param("status") ReservationStatus status
     );
 
 
-    @Query("""
-       SELECT r from ReservationEntity r
-            WHERE (:roomId IS NULL OR r.roomId = :roomId)
-            AND (:userId IS NULL OR r.userId = :userId)
-       """)
-    // Если roomId NULL то не происходит фильтрации
-    List<ReservationEntity> searchAllByFilter(
-            @Param("roomId") Long roomId,
-            @Param("userId") Long userId,
-            Pageable pageable
+    // Комнат как таблицы нет: множество комнат - различные room_id в reservation_history,
+    // поэтому комната, все брони которой уже в архиве, остаётся в выдаче. Комнаты
+    // перебираются рекурсивным skip scan по индексам (room_id, ...) обеих таблиц начиная
+    // с after, вместе с признаком free; рекурсия останавливается, набрав :limit свободных,
+    // поэтому ORDER BY сортирует только просмотренное. Антиджойн NOT EXISTS идёт
+    // по GiST-индексу reservations_approved_no_overlap
+    @Query(value = """
+            WITH RECURSIVE rooms (room_id, free, found) AS (
+                SELECT n.room_id, n.free, CAST(n.free AS INT)
+                FROM (
+                    SELECT h.room_id, NOT EXISTS (
+                        SELECT 1 FROM reservations r
+                        WHERE r.room_id = h.room_id
+                        AND daterange(r.start_date, r.end_date) && daterange(:startDate, :endDate)
+                        AND r.status = 'APPROVED'
+                    ) AS free
+                    FROM (SELECT room_id FROM reservation_history
+                          WHERE room_id > :after ORDER BY room_id LIMIT 1) h
+                ) n
+                UNION ALL
+                SELECT n.room_id, n.free, rooms.found + CAST(n.free AS INT)
+                FROM rooms
+                CROSS JOIN LATERAL (
+                    SELECT h.room_id, NOT EXISTS (
+                        SELECT 1 FROM reservations r
+                        WHERE r.room_id = h.room_id
+                        AND daterange(r.start_date, r.end_date) && daterange(:startDate, :endDate)
+                        AND r.status = 'APPROVED'
+                    ) AS free
+                    FROM (SELECT room_id FROM reservation_history
+                          WHERE room_id > rooms.room_id ORDER BY room_id LIMIT 1) h
+                ) n
+                WHERE rooms.found < :limit
+            )
+            SELECT room_id FROM rooms
+                    WHERE free
+                    ORDER BY room_id
+                    LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> findAvailableRoomIds(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("after") Long after,
+            @Param("limit") int limit
+    );
+
+
+    // То же среди переданных комнат; комнаты без единого бронирования тоже свободны
+    @Query(value = """
+            SELECT c.room_id FROM (SELECT DISTINCT unnest(:roomIds) AS room_id) c
+                    WHERE c.room_id > :after
+                    AND NOT EXISTS (
+                        SELECT 1 FROM reservations r
+                        WHERE r.room_id = c.room_id
+                        AND daterange(r.start_date, r.end_date) && daterange(:startDate, :endDate)
+                        AND r.status = 'APPROVED'
+                    )
+                    ORDER BY c.room_id
+                    LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> findAvailableRoomIdsAmong(
+            @Param("roomIds") Long[] roomIds,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("after") Long after,
+            @Param("limit") int limit
     );
-}
\ No newline at end of file
+}
@@ -1,10 +1,18 @@
 package dev.folomkin.reservationsystem.reservations;
 
-import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
 
 public record ReservationSearchFilter(
         Long roomId,
         Long userId,
+        ReservationStatus status,
+        // startDate/endDate - период, с которым должно пересекаться бронирование
+        LocalDate startDate,
+        LocalDate endDate,
+        String sortBy,
+        Sort.Direction sortDirection,
         Integer pageSize,
         Integer pageNumber
 ) {
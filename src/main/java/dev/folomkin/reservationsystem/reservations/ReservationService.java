@@ -1,121 +1,297 @@
 package dev.folomkin.reservationsystem.reservations;
 
-import dev.folomkin.reservationsystem.reservations.availability.ReservationAvailabilityService;
-import jakarta.persistence.EntityNotFoundException;
-import jakarta.transaction.Transactional;
+import dev.folomkin.reservationsystem.reservations.availability.ReservedInterval;
+import dev.folomkin.reservationsystem.reservations.availability.RoomAvailabilityIndex;
+import dev.folomkin.reservationsystem.reservations.events.ReservationEventType;
+import dev.folomkin.reservationsystem.reservations.events.ReservationOutbox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.data.domain.Pageable;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ReservationService {
 
     public final Logger log = LoggerFactory.getLogger(ReservationService.class);
 
+    private static final Set<String> SORTABLE_FIELDS = Set.of("id", "roomId", "userId", "startDate", "endDate");
+    private static final int DEFAULT_PAGE_SIZE = 10;
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final ReservationRepository repository;
+    private final ReservationHistoryRepository historyRepository;
     private final ReservationMapper mapper;
-    private final ReservationAvailabilityService availabilityService;
+    private final RoomAvailabilityIndex availabilityIndex;
+    private final ReservationOutbox outbox;
+    private final ReservationMetrics metrics;
 
 
-    public ReservationService(ReservationRepository repository, ReservationMapper mapper, ReservationAvailabilityService availabilityService) {
+    public ReservationService(
+            ReservationRepository repository,
+            ReservationHistoryRepository historyRepository,
+            ReservationMapper mapper,
+            RoomAvailabilityIndex availabilityIndex,
+            ReservationOutbox outbox,
+            ReservationMetrics metrics
+    ) {
         this.repository = repository;
+        this.historyRepository = historyRepository;
         this.mapper = mapper;
-        this.availabilityService = availabilityService;
+        this.availabilityIndex = availabilityIndex;
+        this.outbox = outbox;
+        this.metrics = metrics;
     }
 
+    // Кэш заполняется только с primary: read-only транзакция ушла бы на реплику, и после
+    // вытеснения отстающая строка со старой версией (ETag) жила бы в кэше весь TTL
+    @Cacheable(cacheNames = ReservationCacheConfig.RESERVATIONS_CACHE, key = "#id")
+    @Transactional
     public Reservation getReservationById(Long id) {
-        ReservationEntity reservationEntity = repository.findById(id).
-                orElseThrow(() -> new EntityNotFoundException("Not found reservation by id = " + id));
-        return mapper.toDomain(reservationEntity);
+        return metrics.observe("getReservationById", () -> repository.findById(id)
+                .map(mapper::toDomain)
+                .or(() -> historyRepository.findReservationById(id))
+                .orElseThrow(() -> new ReservationNotFoundException(id)));
     }
 
 
+    @Transactional(readOnly = true)
     public List<Reservation> searchAllByFilter(
             ReservationSearchFilter filter) {
-        int pageSize = filter.pageSize() != null ? filter.pageSize() : 10;
-        int pageNumber = filter.pageNumber() != null ? filter.pageNumber() : 0;
-        var pageable = Pageable.ofSize(pageSize).withPage(pageNumber);
-        List<ReservationEntity> allEntities = repository.searchAllByFilter(
-                filter.roomId(), filter.userId(), pageable
-        );
-        return allEntities.stream().map(mapper::toDomain).toList();
+        return metrics.observe("searchAllByFilter", () -> {
+            int pageSize = resolvePageSize(filter);
+            int pageNumber = filter.pageNumber() != null ? filter.pageNumber() : 0;
+            var pageable = PageRequest.of(pageNumber, pageSize, resolveSort(filter));
+            var allEntities = historyRepository.findBy(
+                    ReservationSpecifications.byFilter(filter),
+                    query -> query.slice(pageable)
+            );
+            return allEntities.stream().map(mapper::toDomain).toList();
+        });
     }
 
 
-    public Reservation createReservation(Reservation reservationToCreate) {
-        if (reservationToCreate.status() != null) {
-            throw new IllegalArgumentException("Status should be empty");
+    @Transactional(readOnly = true)
+    public ReservationPage searchAllByFilterAfter(
+            ReservationSearchFilter filter,
+            String cursor) {
+        return metrics.observe("searchAllByFilterAfter", () -> {
+            int pageSize = resolvePageSize(filter);
+            var specification = ReservationSpecifications.byFilter(filter);
+            if (cursor != null) {
+                specification = specification.and(ReservationSpecifications.after(ReservationCursor.decode(cursor)));
+            }
+            List<Reservation> reservations = historyRepository.findBy(
+                    specification,
+                    query -> query.sortBy(Sort.by("startDate", "id")).limit(pageSize + 1).all()
+            ).stream().map(mapper::toDomain).toList();
+
+            if (reservations.size() <= pageSize) {
+                return new ReservationPage(reservations, null);
+            }
+            var page = reservations.subList(0, pageSize);
+            return new ReservationPage(page, ReservationCursor.of(page.getLast()).encode());
+        });
+    }
+
+
+    @Transactional(readOnly = true)
+    public void exportAllByFilter(
+            ReservationSearchFilter filter,
+            Consumer<Reservation> consumer) {
+        metrics.observe("exportAllByFilter", () -> {
+            try (Stream<Reservation> reservations = historyRepository.streamAll(ReservationSpecifications.byFilter(filter))) {
+                reservations.forEach(consumer);
+            }
+        });
+    }
+
+
+    // Без ограничения один клиент с большим pageSize может занять БД для всех
+    private static int resolvePageSize(ReservationSearchFilter filter) {
+        if (filter.pageSize() == null) {
+            return DEFAULT_PAGE_SIZE;
         }
-        if (!reservationToCreate.endDate().isAfter(reservationToCreate.startDate())) {
-            throw new IllegalArgumentException("Start date must be 1 day earlier than and date");
+        if (filter.pageSize() < 1 || filter.pageSize() > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
         }
+        return filter.pageSize();
+    }
 
-        var entityToSave = mapper.toEntity(reservationToCreate);
-        entityToSave.setStatus(ReservationStatus.PENDING);
-
-        var saved = repository.save(entityToSave);
-        return mapper.toDomain(saved);
+    // id в конце сортировки делает порядок однозначным между страницами
+    private Sort resolveSort(ReservationSearchFilter filter) {
+        var sortBy = filter.sortBy() != null ? filter.sortBy() : "id";
+        if (!SORTABLE_FIELDS.contains(sortBy)) {
+            throw new IllegalArgumentException("Cannot sort by " + sortBy + ", allowed: " + SORTABLE_FIELDS);
+        }
+        var direction = filter.sortDirection() != null ? filter.sortDirection() : Sort.Direction.ASC;
+        var sort = Sort.by(direction, sortBy);
+        return sortBy.equals("id") ? sort : sort.and(Sort.by(direction, "id"));
     }
 
-    public Reservation updateReservation(Long id, Reservation reservationToUpdate) {
-        var reservationEntity = repository.findById(id).orElseThrow(
-                () -> new EntityNotFoundException("Not found reservation by id = " + id)
-        );
 
-        if (reservationEntity.getStatus() != ReservationStatus.PENDING) {
-            throw new IllegalStateException("Cannot modify reservation " + reservationEntity.getStatus());
+    @Transactional
+    public Reservation createReservation(Reservation reservationToCreate) {
+        return metrics.observe("createReservation", () -> {
+            validateNewReservation(reservationToCreate);
+
+            var entityToSave = mapper.toEntity(reservationToCreate);
+            entityToSave.setStatus(ReservationStatus.PENDING);
+
+            var created = mapper.toDomain(repository.save(entityToSave));
+            outbox.record(ReservationEventType.CREATED, created);
+            return created;
+        });
+    }
+
+    void validateNewReservation(Reservation reservationToCreate) {
+        if (reservationToCreate.status() != null) {
+            throw new IllegalArgumentException("Status should be empty");
         }
-        if (!reservationToUpdate.endDate().isAfter(reservationToUpdate.startDate())) {
+        if (!reservationToCreate.endDate().isAfter(reservationToCreate.startDate())) {
             throw new IllegalArgumentException("Start date must be 1 day earlier than and date");
         }
+    }
 
-        var reservationToSave = mapper.toEntity(reservationToUpdate);
-        reservationToSave.setId(reservationEntity.getId());
-        reservationToSave.setStatus(ReservationStatus.PENDING);
+    // expectedVersions - версии из If-Match, пустой список - без проверки
+    @Transactional
+    @CacheEvict(cacheNames = ReservationCacheConfig.RESERVATIONS_CACHE, key = "#id")
+    public Reservation updateReservation(Long id, Reservation reservationToUpdate, List<Long> expectedVersions) {
+        return metrics.observe("updateReservation", () -> {
+            if (!reservationToUpdate.endDate().isAfter(reservationToUpdate.startDate())) {
+                throw new IllegalArgumentException("Start date must be 1 day earlier than and date");
+            }
+            var expectedVersion = resolveExpectedVersion(id, expectedVersions);
+
+            var versions = repository.updatePendingFields(
+                    id,
+                    expectedVersion,
+                    reservationToUpdate.userId(),
+                    reservationToUpdate.roomId(),
+                    reservationToUpdate.startDate(),
+                    reservationToUpdate.endDate()
+            );
+            if (versions.isEmpty()) {
+                var current = findForFailedModification(id, expectedVersion);
+                throw new ReservationStateException("Cannot modify reservation " + current.status());
+            }
+            var updated = new Reservation(
+                    id,
+                    reservationToUpdate.userId(),
+                    reservationToUpdate.roomId(),
+                    reservationToUpdate.startDate(),
+                    reservationToUpdate.endDate(),
+                    ReservationStatus.PENDING,
+                    versions.getFirst()
+            );
+            outbox.record(ReservationEventType.UPDATED, updated);
+            return updated;
+        });
+    }
 
 
-        var updatedReservation = repository.save(reservationToSave);
-        return mapper.toDomain(updatedReservation);
+    @Transactional
+    @CacheEvict(cacheNames = ReservationCacheConfig.RESERVATIONS_CACHE, key = "#id")
+    public void cancelReservation(Long id, List<Long> expectedVersions) {
+        metrics.observe("cancelReservation", () -> {
+            var expectedVersion = resolveExpectedVersion(id, expectedVersions);
+            int updated = repository.setStatus(id, ReservationStatus.PENDING, expectedVersion, ReservationStatus.CANCELLED);
+            if (updated == 0) {
+                var current = findForFailedModification(id, expectedVersion);
+                if (current.status() == ReservationStatus.APPROVED) {
+                    throw new ReservationStateException("Cannot cancel approved reservation. Contact with manager please.");
+                }
+                throw new ReservationStateException("Cannot cancel the reservation. Reservation was already canceled.");
+            }
+            // Снимок для события читается после UPDATE в той же транзакции
+            repository.findReservationById(id)
+                    .ifPresent(cancelled -> outbox.record(ReservationEventType.CANCELLED, cancelled));
+            log.info("Successfully cancelled reservation: id={}", id);
+        });
     }
 
 
     @Transactional
-    public void cancelReservation(Long id) {
-        var reservation = repository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Not found reservation by id " + id));
+    @CacheEvict(cacheNames = ReservationCacheConfig.RESERVATIONS_CACHE, key = "#id")
+    public Reservation approveReservation(Long id, List<Long> expectedVersions) {
+        return metrics.observe("approveReservation", () -> {
+            var expectedVersion = resolveExpectedVersion(id, expectedVersions);
+            var reservation = findCurrent(id);
+            checkVersion(reservation, expectedVersion);
+            if (reservation.status() != ReservationStatus.PENDING) {
+                throw new ReservationStateException("Cannot approve reservation status" + reservation.status());
+            }
+            repository.lockRoom(reservation.roomId());
+            int updated = repository.approveIfNoConflicts(id, reservation.version());
+            if (updated == 0) {
+                // Между чтением и блокировкой бронь могли изменить параллельным запросом
+                var current = findForFailedModification(id, expectedVersion);
+                if (current.status() != ReservationStatus.PENDING) {
+                    throw new ReservationStateException("Cannot approve reservation status" + current.status());
+                }
+                if (!current.version().equals(reservation.version())) {
+                    throw new ReservationConflictException("Reservation was modified concurrently, id=" + id);
+                }
+                throw new ReservationConflictException("Cannot approve reservation because of conflict");
+            }
+            availabilityIndex.add(new ReservedInterval(
+                    reservation.id(),
+                    reservation.roomId(),
+                    reservation.startDate(),
+                    reservation.endDate()
+            ));
+            var approved = new Reservation(
+                    reservation.id(),
+                    reservation.userId(),
+                    reservation.roomId(),
+                    reservation.startDate(),
+                    reservation.endDate(),
+                    ReservationStatus.APPROVED,
+                    reservation.version() + 1
+            );
+            outbox.record(ReservationEventType.APPROVED, approved);
+            return approved;
+        });
+    }
 
-        if (reservation.getStatus().equals(ReservationStatus.APPROVED)) {
-            throw new IllegalStateException("Cannot cancel approved reservation. Contact with manager please.");
+    // Из нескольких тегов If-Match подходит только текущая версия; условный UPDATE
+    // с ней же всё равно не пройдёт, если строку успели изменить после чтения
+    private Long resolveExpectedVersion(Long id, List<Long> expectedVersions) {
+        if (expectedVersions.size() <= 1) {
+            return expectedVersions.isEmpty() ? null : expectedVersions.getFirst();
         }
-        if (reservation.getStatus().equals(ReservationStatus.CANCELLED)) {
-            throw new IllegalStateException("Cannot cancel the reservation. Reservation was already canceled.");
+        var current = findCurrent(id);
+        if (!expectedVersions.contains(current.version())) {
+            throw new ReservationVersionMismatchException(id, expectedVersions, current.version());
         }
-        repository.setStatus(id, ReservationStatus.CANCELLED);
-        log.info("Successfully cancelled reservation: id={}", id);
+        return current.version();
     }
 
+    // Условное обновление не затронуло строку: 404, 412 или конфликт состояния решает вызывающий
+    private Reservation findForFailedModification(Long id, Long expectedVersion) {
+        var current = findCurrent(id);
+        checkVersion(current, expectedVersion);
+        return current;
+    }
 
-    public Reservation approveReservation(Long id) {
-        var reservationEntity = repository.findById(id).orElseThrow(
-                () -> new EntityNotFoundException("Not found reservation by id = " + id)
-        );
-        if (reservationEntity.getStatus() != ReservationStatus.PENDING) {
-            throw new IllegalStateException("Cannot approve reservation status" + reservationEntity.getStatus());
-        }
-        var isAvailableToApprove = availabilityService.isReservationAvailable(
-                reservationEntity.getRoomId(),
-                reservationEntity.getStartDate(),
-                reservationEntity.getEndDate()
-        );
-        if (!isAvailableToApprove) {
-            throw new IllegalStateException("Cannot approve reservation because of conflict");
+    // Архивная бронь завершена, поэтому изменить её нельзя, но ответ - ошибка состояния, а не 404
+    private Reservation findCurrent(Long id) {
+        return repository.findReservationById(id)
+                .or(() -> historyRepository.findReservationById(id))
+                .orElseThrow(() -> new ReservationNotFoundException(id));
+    }
+
+    private static void checkVersion(Reservation reservation, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(reservation.version())) {
+            throw new ReservationVersionMismatchException(reservation.id(), List.of(expectedVersion), reservation.version());
         }
-        reservationEntity.setStatus(ReservationStatus.APPROVED);
-        repository.save(reservationEntity);
-        return mapper.toDomain(reservationEntity);
     }
 }
@@ -0,0 +1,49 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// В запрос попадают только заданные в фильтре условия, чтобы под каждую комбинацию
+// фильтров Postgres строил свой план по индексу, а не общий план для "IS NULL OR ..."
+final class ReservationSpecifications {
+
+    private ReservationSpecifications() {
+    }
+
+    static Specification<ReservationHistoryEntity> byFilter(ReservationSearchFilter filter) {
+        List<Specification<ReservationHistoryEntity>> specifications = new ArrayList<>();
+        if (filter.roomId() != null) {
+            specifications.add((root, query, cb) -> cb.equal(root.get("roomId"), filter.roomId()));
+        }
+        if (filter.userId() != null) {
+            specifications.add((root, query, cb) -> cb.equal(root.get("userId"), filter.userId()));
+        }
+        if (filter.status() != null) {
+            specifications.add((root, query, cb) -> cb.equal(root.get("status"), filter.status()));
+        }
+        if (filter.startDate() != null) {
+            specifications.add((root, query, cb) -> cb.greaterThan(root.get("endDate"), filter.startDate()));
+        }
+        if (filter.endDate() != null) {
+            specifications.add((root, query, cb) -> cb.lessThan(root.get("startDate"), filter.endDate()));
+        }
+        return Specification.allOf(specifications);
+    }
+
+    // start_date >= cursor дублирует условие OR, но только его Postgres берёт границей
+    // индекса (start_date, id) - иначе каждая страница читает индекс с начала
+    static Specification<ReservationHistoryEntity> after(ReservationCursor cursor) {
+        return (root, query, cb) -> cb.and(
+                cb.greaterThanOrEqualTo(root.get("startDate"), cursor.startDate()),
+                cb.or(
+                        cb.greaterThan(root.get("startDate"), cursor.startDate()),
+                        cb.and(
+                                cb.equal(root.get("startDate"), cursor.startDate()),
+                                cb.greaterThan(root.get("id"), cursor.id())
+                        )
+                )
+        );
+    }
+}
@@ -0,0 +1,14 @@
+package dev.folomkin.reservationsystem.reservations;
+
+// Переход недопустим в текущем статусе бронирования. Как и ReservationNotFoundException, без стека
+public class ReservationStateException extends IllegalStateException {
+
+    public ReservationStateException(String message) {
+        super(message);
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
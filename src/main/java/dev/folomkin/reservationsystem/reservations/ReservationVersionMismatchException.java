@@ -0,0 +1,17 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import java.util.List;
+
+// If-Match не совпал с текущей версией - ответ 412. Как и ReservationNotFoundException, без стека
+public class ReservationVersionMismatchException extends RuntimeException {
+
+    public ReservationVersionMismatchException(Long id, List<Long> expectedVersions, Long actualVersion) {
+        super("Reservation id=" + id + " has version " + actualVersion + ", expected "
+                + (expectedVersions.size() == 1 ? expectedVersions.getFirst() : "one of " + expectedVersions));
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,119 @@
+package dev.folomkin.reservationsystem.reservations.availability;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+// Одинаковые параллельные проверки (roomId, startDate, endDate) в БД выполняются одним запросом:
+// первый вызов идёт в БД, остальные ждут его результат. Результат держится в микрокэше
+// micro-cache-ttl (0 - без кэша) и сбрасывается одобрением брони той же комнаты
+@Component
+public class AvailabilityLookupCoalescer {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final ConcurrentHashMap<LookupKey, CompletableFuture<List<Long>>> inFlight = new ConcurrentHashMap<>();
+    private final Cache<LookupKey, CachedLookup> recent;
+    // Поколение комнаты растёт при одобрении. Запись кэша помнит поколение, при котором начат
+    // запрос, и со старым поколением не отдаётся: сброс комнаты - один инкремент, без обхода кэша
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final Counter executed;
+    private final Counter coalesced;
+    private final Counter cached;
+
+    public AvailabilityLookupCoalescer(
+            MeterRegistry meterRegistry,
+            @Value("${reservation.availability.coalescing.micro-cache-ttl:0}") Duration microCacheTtl,
+            @Value("${reservation.availability.coalescing.micro-cache-size:10000}") long microCacheSize
+    ) {
+        this.recent = microCacheTtl.isZero()
+                ? null
+                : Caffeine.newBuilder()
+                .expireAfterWrite(microCacheTtl)
+                .maximumSize(microCacheSize)
+                .build();
+        this.executed = lookups(meterRegistry, "executed");
+        this.coalesced = lookups(meterRegistry, "coalesced");
+        this.cached = lookups(meterRegistry, "cached");
+    }
+
+    public List<Long> find(Long roomId, LocalDate startDate, LocalDate endDate, Supplier<List<Long>> lookup) {
+        var key = new LookupKey(roomId, startDate, endDate);
+        if (recent != null) {
+            var entry = recent.getIfPresent(key);
+            if (entry != null && entry.generation() == generations.get(stripe(roomId))) {
+                cached.increment();
+                return entry.ids();
+            }
+        }
+        var call = new CompletableFuture<List<Long>>();
+        var running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        executed.increment();
+        long generation = generations.get(stripe(roomId));
+        try {
+            var result = List.copyOf(lookup.get());
+            if (recent != null) {
+                // Проверка поколения и запись под блокировкой ключа: результат, посчитанный до
+                // одобрения, не перезапишет более свежий
+                recent.asMap().compute(key, (k, previous) -> generations.get(stripe(roomId)) == generation
+                        ? new CachedLookup(generation, result)
+                        : previous);
+            }
+            call.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    public void invalidateRoom(Long roomId) {
+        generations.incrementAndGet(stripe(roomId));
+    }
+
+    private static int stripe(Long roomId) {
+        return (Long.hashCode(roomId) & Integer.MAX_VALUE) % GENERATION_STRIPES;
+    }
+
+    private static List<Long> await(CompletableFuture<List<Long>> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("reservation.availability.lookups")
+                .description("Database availability lookups by how they were answered")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record LookupKey(Long roomId, LocalDate startDate, LocalDate endDate) {
+    }
+
+    private record CachedLookup(long generation, List<Long> ids) {
+    }
+}
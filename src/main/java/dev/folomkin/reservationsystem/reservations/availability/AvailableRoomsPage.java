@@ -0,0 +1,10 @@
+package dev.folomkin.reservationsystem.reservations.availability;
+
+import java.util.List;
+
+// nextAfter - значение параметра after для следующей страницы, null - страниц больше нет
+public record AvailableRoomsPage(
+        List<Long> roomIds,
+        Long nextAfter
+) {
+}
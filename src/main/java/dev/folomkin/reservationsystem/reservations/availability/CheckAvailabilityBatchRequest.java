@@ -0,0 +1,15 @@
+package dev.folomkin.reservationsystem.reservations.availability;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record CheckAvailabilityBatchRequest(
+        @NotEmpty
+        @Size(max = 500)
+        List<@Valid @NotNull CheckAvailabilityRequest> checks
+) {
+}
@@ -0,0 +1,14 @@
+package dev.folomkin.reservationsystem.reservations.availability;
+
+import java.time.LocalDate;
+
+public record CheckAvailabilityBatchResponse(
+        Long roomId,
+
+        LocalDate startDate,
+
+        LocalDate endDate,
+
+        AvailabilityStatus status
+) {
+}
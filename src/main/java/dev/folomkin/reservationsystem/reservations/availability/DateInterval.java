@@ -0,0 +1,9 @@
+package dev.folomkin.reservationsystem.reservations.availability;
+
+import java.time.LocalDate;
+
+public record DateInterval(
+        LocalDate startDate,
+        LocalDate endDate
+) {
+}
@@ -5,9 +5,10 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/reservation/availability")
@@ -41,4 +42,35 @@ public class ReservationAvailabilityController {
                 new CheckAvailabilityResponse(message, status)
         );
     }
+
+    @PostMapping("/check/batch")
+    public ResponseEntity<List<CheckAvailabilityBatchResponse>> checkAvailabilityBatch(
+            @RequestBody @Valid CheckAvailabilityBatchRequest request
+    ) {
+        log.info("Called method checkAvailabilityBatch, size={}", request.checks().size());
+        return ResponseEntity.ok(service.checkAvailability(request.checks()));
+    }
+
+    @GetMapping("/rooms")
+    public ResponseEntity<AvailableRoomsPage> findAvailableRooms(
+            @RequestParam(name = "startDate") LocalDate startDate,
+            @RequestParam(name = "endDate") LocalDate endDate,
+            @RequestParam(name = "roomIds", required = false) List<Long> roomIds,
+            @RequestParam(name = "after", required = false) Long after,
+            @RequestParam(name = "pageSize", required = false) Integer pageSize
+    ) {
+        log.info("Called method findAvailableRooms, startDate={}, endDate={}", startDate, endDate);
+        return ResponseEntity.ok(service.findAvailableRooms(roomIds, startDate, endDate, after, pageSize));
+    }
+
+    @GetMapping("/calendar")
+    public ResponseEntity<List<RoomCalendarResponse>> getRoomCalendars(
+            @RequestParam(name = "roomIds") List<Long> roomIds,
+            @RequestParam(name = "startDate") LocalDate startDate,
+            @RequestParam(name = "days", defaultValue = "90") Integer days,
+            @RequestParam(name = "minNights", defaultValue = "1") Integer minNights
+    ) {
+        log.info("Called method getRoomCalendars, roomIds={}", roomIds);
+        return ResponseEntity.ok(service.getRoomCalendars(roomIds, startDate, days, minNights));
+    }
 }
@@ -1,13 +1,18 @@
 package dev.folomkin.reservationsystem.reservations.availability;
 
+import dev.folomkin.reservationsystem.reservations.ReservationMetrics;
 import dev.folomkin.reservationsystem.reservations.ReservationRepository;
 import dev.folomkin.reservationsystem.reservations.ReservationStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class ReservationAvailabilityService {
@@ -15,30 +20,183 @@ public class ReservationAvailabilityService {
     private static final Logger log = LoggerFactory.getLogger(ReservationAvailabilityService.class);
 
     private final ReservationRepository repository;
+    private final RoomAvailabilityIndex index;
+    private final AvailabilityLookupCoalescer lookups;
+    private final ReservationMetrics metrics;
 
-    public ReservationAvailabilityService(ReservationRepository repository) {
+    public ReservationAvailabilityService(
+            ReservationRepository repository,
+            RoomAvailabilityIndex index,
+            AvailabilityLookupCoalescer lookups,
+            ReservationMetrics metrics
+    ) {
         this.repository = repository;
+        this.index = index;
+        this.lookups = lookups;
+        this.metrics = metrics;
     }
 
+    @Transactional(readOnly = true)
     public boolean isReservationAvailable(
             Long roomId,
             LocalDate startDate,
             LocalDate endDate) {
 
-        if (!endDate.isAfter(startDate)) {
-            throw new IllegalArgumentException("Start date must be 1 day earlier than and date");
+        return metrics.observe("isReservationAvailable", () -> {
+            validateDates(startDate, endDate);
+            if (!index.covers(startDate)) {
+                return noConflicts(findConflictIdsInDatabase(roomId, startDate, endDate));
+            }
+            // Интервалы перебираются только при занятости, чтобы залогировать конфликтующие id
+            return index.isFree(roomId, startDate, endDate)
+                    || noConflicts(index.findConflictIds(roomId, startDate, endDate));
+        }, isAvailable -> isAvailable ? ReservationMetrics.OK : ReservationMetrics.CONFLICT);
+    }
+
+    // Все проверки пакета отвечаются одним проходом по индексу либо одним запросом в БД
+    @Transactional(readOnly = true)
+    public List<CheckAvailabilityBatchResponse> checkAvailability(List<CheckAvailabilityRequest> checks) {
+        checks.forEach(check -> validateDates(check.startDate(), check.endDate()));
+
+        var minStartDate = checks.stream().map(CheckAvailabilityRequest::startDate)
+                .min(Comparator.naturalOrder()).orElseThrow();
+        var maxEndDate = checks.stream().map(CheckAvailabilityRequest::endDate)
+                .max(Comparator.naturalOrder()).orElseThrow();
+
+        boolean fromIndex = index.covers(minStartDate);
+        Map<Long, List<ReservedInterval>> intervalsByRoom = fromIndex
+                ? Map.of()
+                : repository.findReservedIntervals(
+                        checks.stream().map(CheckAvailabilityRequest::roomId).collect(Collectors.toSet()),
+                        minStartDate,
+                        maxEndDate,
+                        ReservationStatus.APPROVED
+                ).stream().collect(Collectors.groupingBy(ReservedInterval::roomId));
+
+        return checks.stream()
+                .map(check -> {
+                    boolean isAvailable = fromIndex
+                            ? index.isFree(check.roomId(), check.startDate(), check.endDate())
+                            : intervalsByRoom.getOrDefault(check.roomId(), List.of()).stream()
+                            .noneMatch(interval -> check.startDate().isBefore(interval.endDate())
+                                    && interval.startDate().isBefore(check.endDate()));
+                    return new CheckAvailabilityBatchResponse(
+                            check.roomId(),
+                            check.startDate(),
+                            check.endDate(),
+                            isAvailable ? AvailabilityStatus.AVAILABLE : AvailabilityStatus.RESERVED
+                    );
+                })
+                .toList();
+    }
+
+    // Поиск по всем комнатам или среди кандидатов (до 1000), страницы по возрастанию room_id.
+    // Кандидаты внутри окна индекса проверяются битовой картой, иначе страница - один запрос в БД
+    @Transactional(readOnly = true)
+    public AvailableRoomsPage findAvailableRooms(
+            List<Long> roomIds,
+            LocalDate startDate,
+            LocalDate endDate,
+            Long after,
+            Integer pageSize) {
+
+        validateDates(startDate, endDate);
+        int size = pageSize != null ? pageSize : 100;
+        if (size < 1 || size > 1000) {
+            throw new IllegalArgumentException("Page size must be between 1 and 1000");
+        }
+        boolean hasCandidates = roomIds != null && !roomIds.isEmpty();
+        if (hasCandidates && roomIds.size() > 1000) {
+            throw new IllegalArgumentException("Room ids count must be between 1 and 1000");
+        }
+        long afterRoomId = after != null ? after : Long.MIN_VALUE;
+        return metrics.observe("findAvailableRooms", () -> {
+            List<Long> found;
+            if (!hasCandidates) {
+                found = repository.findAvailableRoomIds(startDate, endDate, afterRoomId, size + 1);
+            } else if (index.covers(startDate)) {
+                var candidates = roomIds.stream()
+                        .filter(roomId -> roomId > afterRoomId)
+                        .distinct()
+                        .sorted()
+                        .toList();
+                found = index.findFreeRooms(candidates, startDate, endDate).stream()
+                        .limit(size + 1)
+                        .toList();
+            } else {
+                found = repository.findAvailableRoomIdsAmong(
+                        roomIds.toArray(Long[]::new), startDate, endDate, afterRoomId, size + 1
+                );
+            }
+            if (found.size() <= size) {
+                return new AvailableRoomsPage(found, null);
+            }
+            var page = found.subList(0, size);
+            return new AvailableRoomsPage(page, page.getLast());
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public List<RoomCalendarResponse> getRoomCalendars(
+            List<Long> roomIds,
+            LocalDate startDate,
+            int days,
+            int minNights) {
+
+        if (roomIds.isEmpty() || roomIds.size() > 100) {
+            throw new IllegalArgumentException("Room ids count must be between 1 and 100");
+        }
+        if (days < 1 || days > 366) {
+            throw new IllegalArgumentException("Horizon must be between 1 and 366 days");
         }
+        if (minNights < 1) {
+            throw new IllegalArgumentException("Min nights must be positive");
+        }
+        var endDate = startDate.plusDays(days);
+
+        Map<Long, List<ReservedInterval>> intervalsByRoom = index.covers(startDate)
+                ? roomIds.stream().distinct().collect(Collectors.toMap(
+                        roomId -> roomId,
+                        roomId -> index.findIntervals(roomId, startDate, endDate)))
+                : repository.findReservedIntervals(
+                        roomIds, startDate, endDate, ReservationStatus.APPROVED
+                ).stream().collect(Collectors.groupingBy(ReservedInterval::roomId));
 
-        List<Long> conflictingIds = repository.findConflictReservationIds(
+        return roomIds.stream()
+                .distinct()
+                .map(roomId -> RoomCalendars.build(
+                        roomId,
+                        intervalsByRoom.getOrDefault(roomId, List.of()),
+                        startDate,
+                        endDate,
+                        minNights
+                ))
+                .toList();
+    }
+
+    private List<Long> findConflictIdsInDatabase(
+            Long roomId,
+            LocalDate startDate,
+            LocalDate endDate) {
+        return lookups.find(roomId, startDate, endDate, () -> repository.findConflictReservationIds(
                 roomId,
                 startDate,
-                endDate,
-                ReservationStatus.APPROVED
-        );
+                endDate
+        ));
+    }
+
+    private boolean noConflicts(List<Long> conflictingIds) {
         if (conflictingIds.isEmpty()) {
             return true;
         }
-        log.info("Conflicting with ids={}", conflictingIds);
+        metrics.recordAvailabilityConflict(conflictingIds.size());
+        log.debug("Conflicting with ids={}", conflictingIds);
         return false;
     }
+
+    private void validateDates(LocalDate startDate, LocalDate endDate) {
+        if (!endDate.isAfter(startDate)) {
+            throw new IllegalArgumentException("Start date must be 1 day earlier than and date");
+        }
+    }
 }
@@ -0,0 +1,11 @@
+package dev.folomkin.reservationsystem.reservations.availability;
+
+import java.time.LocalDate;
+
+public record ReservedInterval(
+        Long reservationId,
+        Long roomId,
+        LocalDate startDate,
+        LocalDate endDate
+) {
+}
@@ -0,0 +1,394 @@
+package dev.folomkin.reservationsystem.reservations.availability;
+
+import dev.folomkin.reservationsystem.reservations.ReservationRepository;
+import dev.folomkin.reservationsystem.reservations.ReservationStatus;
+import dev.folomkin.reservationsystem.reservations.events.ReservationEvent;
+import dev.folomkin.reservationsystem.reservations.events.ReservationEventType;
+import dev.folomkin.reservationsystem.reservations.events.ReservationEventsCaughtUp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Индекс APPROVED бронирований по комнатам. Интервалы комнаты хранятся отсортированными
+// по startDate в неизменяемых массивах, которые заменяются целиком при записи,
+// поэтому проверка конфликтов не берёт блокировок. Поверх интервалов ведётся битовая карта
+// занятости на год вперёд: по ней отвечаются вопросы "свободна ли комната" без перебора интервалов.
+// Одобрения других экземпляров приходят событиями outbox; если их доставка отстала
+// больше чем на max-event-lag, индекс не отвечает и проверки идут в БД.
+@Component
+public class RoomAvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(RoomAvailabilityIndex.class);
+
+    private final ReservationRepository repository;
+    private final AvailabilityLookupCoalescer lookups;
+    private final boolean enabled;
+    private final boolean occupancyEnabled;
+    private final long maxEventLagNanos;
+    private final ConcurrentHashMap<Long, RoomIntervals> rooms = new ConcurrentHashMap<>();
+    private final Object occupancyLock = new Object();
+
+    private volatile boolean ready;
+    private volatile LocalDate loadedFrom;
+    private volatile RoomOccupancyBitmap occupancy;
+    private volatile boolean eventsCaughtUp;
+    private volatile long eventsCaughtUpAt;
+
+    public RoomAvailabilityIndex(
+            ReservationRepository repository,
+            AvailabilityLookupCoalescer lookups,
+            @Value("${reservation.availability.index.enabled:true}") boolean enabled,
+            @Value("${reservation.availability.bitmap.enabled:true}") boolean occupancyEnabled,
+            @Value("${reservation.availability.index.max-event-lag:0}") Duration maxEventLag
+    ) {
+        this.repository = repository;
+        this.lookups = lookups;
+        this.enabled = enabled;
+        this.occupancyEnabled = occupancyEnabled;
+        this.maxEventLagNanos = maxEventLag.toNanos();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            log.info("Room availability index is disabled");
+            return;
+        }
+        var from = today();
+        List<ReservedInterval> intervals = repository.findReservedIntervalsEndingAfter(
+                ReservationStatus.APPROVED, from
+        );
+        intervals.forEach(this::put);
+        loadedFrom = from;
+        rebuildOccupancy();
+        ready = true;
+        log.info("Room availability index loaded: rooms={}, reservations={}", rooms.size(), intervals.size());
+    }
+
+    // Раз в сутки индекс сдвигается на сегодня: закончившиеся интервалы удаляются, иначе память
+    // и копирование массивов при каждом одобрении растут со всей историей комнаты.
+    // Окно карты сдвигается вместе с ним; карта строится из интервалов в памяти, без запросов в БД
+    @Scheduled(cron = "${reservation.availability.bitmap.rebuild-cron:0 5 0 * * *}")
+    public void rebuildOccupancy() {
+        if (!enabled || loadedFrom == null) {
+            return;
+        }
+        var today = today();
+        if (today.isAfter(loadedFrom)) {
+            dropEndedBefore(today);
+        }
+        if (!occupancyEnabled) {
+            return;
+        }
+        synchronized (occupancyLock) {
+            var bitmap = new RoomOccupancyBitmap(today(), rooms.size());
+            rooms.forEach((roomId, intervals) -> intervals.forEach(roomId, bitmap::occupy));
+            occupancy = bitmap;
+            log.info("Room occupancy bitmap rebuilt: from={}, rooms={}", bitmap.windowStart(), bitmap.roomCount());
+        }
+    }
+
+    // Сначала сдвигается граница covers: более ранние даты уже идут в БД, и интервалы можно удалять
+    private void dropEndedBefore(LocalDate day) {
+        loadedFrom = day;
+        long dayNumber = day.toEpochDay();
+        int[] dropped = new int[1];
+        for (var roomId : rooms.keySet()) {
+            rooms.computeIfPresent(roomId, (id, intervals) -> {
+                var kept = intervals.endingAfter(dayNumber);
+                dropped[0] += intervals.size() - kept.size();
+                return kept.isEmpty() ? null : kept;
+            });
+        }
+        log.info("Room availability index moved: from={}, dropped={}, rooms={}", day, dropped[0], rooms.size());
+    }
+
+    // Начало окна индекса; бенчмарки подменяют его фиксированной датой
+    protected LocalDate today() {
+        return LocalDate.now();
+    }
+
+    // Интервалы, закончившиеся до загрузки, в индекс не попадают - такие запросы идут в БД
+    public boolean covers(LocalDate startDate) {
+        return ready && !startDate.isBefore(loadedFrom) && eventsInSync();
+    }
+
+    // max-event-lag = 0 - один экземпляр, все одобрения проходят через add
+    private boolean eventsInSync() {
+        return maxEventLagNanos == 0
+                || eventsCaughtUp && System.nanoTime() - eventsCaughtUpAt <= maxEventLagNanos;
+    }
+
+    // Свои одобрения приходят сюда повторно; put заменяет интервал по id брони
+    @EventListener
+    public void onReservationEvent(ReservationEvent event) {
+        if (event.type() != ReservationEventType.APPROVED) {
+            return;
+        }
+        var reservation = event.reservation();
+        add(new ReservedInterval(
+                reservation.id(), reservation.roomId(), reservation.startDate(), reservation.endDate()
+        ));
+    }
+
+    @EventListener(ReservationEventsCaughtUp.class)
+    public void onEventsCaughtUp() {
+        eventsCaughtUpAt = System.nanoTime();
+        eventsCaughtUp = true;
+    }
+
+    public List<Long> findConflictIds(Long roomId, LocalDate startDate, LocalDate endDate) {
+        var intervals = rooms.get(roomId);
+        if (intervals == null) {
+            return List.of();
+        }
+        return intervals.findConflicts(startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    // Вызывающий проверяет covers. Внутри окна битовой карты ответ - маски по нескольким словам
+    public boolean isFree(Long roomId, LocalDate startDate, LocalDate endDate) {
+        var bitmap = occupancy;
+        if (bitmap != null && bitmap.covers(startDate, endDate)) {
+            return bitmap.isFree(roomId, startDate, endDate);
+        }
+        return findConflictIds(roomId, startDate, endDate).isEmpty();
+    }
+
+    public List<Long> findFreeRooms(Collection<Long> roomIds, LocalDate startDate, LocalDate endDate) {
+        var bitmap = occupancy;
+        if (bitmap != null && bitmap.covers(startDate, endDate)) {
+            return bitmap.findFreeRooms(roomIds, startDate, endDate);
+        }
+        return roomIds.stream()
+                .filter(roomId -> findConflictIds(roomId, startDate, endDate).isEmpty())
+                .toList();
+    }
+
+    public List<ReservedInterval> findIntervals(Long roomId, LocalDate startDate, LocalDate endDate) {
+        var intervals = rooms.get(roomId);
+        if (intervals == null) {
+            return List.of();
+        }
+        return intervals.findIntervals(roomId, startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    // Микрокэш проверок в БД сбрасывается и при выключенном индексе
+    public void add(ReservedInterval interval) {
+        afterCommit(() -> {
+            lookups.invalidateRoom(interval.roomId());
+            if (enabled) {
+                put(interval);
+            }
+        });
+    }
+
+    // Карта обновляется после индекса: перестроение между двумя шагами уже видит изменение,
+    // а повторная установка или сброс тех же битов ничего не меняет
+    private void put(ReservedInterval interval) {
+        var from = loadedFrom;
+        if (from != null && !interval.endDate().isAfter(from)) {
+            return;
+        }
+        var previous = new ReservedInterval[1];
+        rooms.compute(interval.roomId(), (id, intervals) -> {
+            var current = intervals == null ? RoomIntervals.EMPTY : intervals;
+            previous[0] = current.find(id, interval.reservationId());
+            return current.with(interval);
+        });
+        updateOccupancy(bitmap -> {
+            if (previous[0] != null) {
+                bitmap.release(previous[0].roomId(), previous[0].startDate(), previous[0].endDate());
+            }
+            bitmap.occupy(interval.roomId(), interval.startDate(), interval.endDate());
+        });
+    }
+
+    private void updateOccupancy(Consumer<RoomOccupancyBitmap> update) {
+        if (occupancy == null) {
+            return;
+        }
+        synchronized (occupancyLock) {
+            update.accept(occupancy);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface OccupiedNights {
+        void accept(Long roomId, LocalDate startDate, LocalDate endDate);
+    }
+
+    private static final class RoomIntervals {
+
+        static final RoomIntervals EMPTY = new RoomIntervals(new long[0], new long[0], new long[0], 0);
+
+        private final long[] ids;
+        private final long[] starts;
+        private final long[] ends;
+        // Самый длинный интервал комнаты ограничивает, насколько левее startDate нужно искать
+        private final long maxLength;
+
+        private RoomIntervals(long[] ids, long[] starts, long[] ends, long maxLength) {
+            this.ids = ids;
+            this.starts = starts;
+            this.ends = ends;
+            this.maxLength = maxLength;
+        }
+
+        List<Long> findConflicts(long startDay, long endDay) {
+            List<Long> conflicts = new ArrayList<>(0);
+            for (int i = lowerBound(startDay - maxLength + 1); i < starts.length && starts[i] < endDay; i++) {
+                if (ends[i] > startDay) {
+                    conflicts.add(ids[i]);
+                }
+            }
+            return conflicts;
+        }
+
+        List<ReservedInterval> findIntervals(Long roomId, long startDay, long endDay) {
+            List<ReservedInterval> intervals = new ArrayList<>();
+            for (int i = lowerBound(startDay - maxLength + 1); i < starts.length && starts[i] < endDay; i++) {
+                if (ends[i] > startDay) {
+                    intervals.add(new ReservedInterval(
+                            ids[i], roomId, LocalDate.ofEpochDay(starts[i]), LocalDate.ofEpochDay(ends[i])
+                    ));
+                }
+            }
+            return intervals;
+        }
+
+        RoomIntervals with(ReservedInterval interval) {
+            var base = without(interval.reservationId());
+            long start = interval.startDate().toEpochDay();
+            long end = interval.endDate().toEpochDay();
+            int position = base.upperBound(start);
+            return new RoomIntervals(
+                    insert(base.ids, position, interval.reservationId()),
+                    insert(base.starts, position, start),
+                    insert(base.ends, position, end),
+                    Math.max(base.maxLength, end - start)
+            );
+        }
+
+        ReservedInterval find(Long roomId, Long reservationId) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == reservationId) {
+                    return new ReservedInterval(
+                            ids[i], roomId, LocalDate.ofEpochDay(starts[i]), LocalDate.ofEpochDay(ends[i])
+                    );
+                }
+            }
+            return null;
+        }
+
+        void forEach(Long roomId, OccupiedNights action) {
+            for (int i = 0; i < ids.length; i++) {
+                action.accept(roomId, LocalDate.ofEpochDay(starts[i]), LocalDate.ofEpochDay(ends[i]));
+            }
+        }
+
+        RoomIntervals without(Long reservationId) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == reservationId) {
+                    return new RoomIntervals(delete(ids, i), delete(starts, i), delete(ends, i), maxLength);
+                }
+            }
+            return this;
+        }
+
+        boolean isEmpty() {
+            return ids.length == 0;
+        }
+
+        int size() {
+            return ids.length;
+        }
+
+        // Интервалы, которые заканчиваются позже day; порядок по startDate сохраняется
+        RoomIntervals endingAfter(long day) {
+            int kept = 0;
+            for (long end : ends) {
+                if (end > day) {
+                    kept++;
+                }
+            }
+            if (kept == ends.length) {
+                return this;
+            }
+            long[] keptIds = new long[kept];
+            long[] keptStarts = new long[kept];
+            long[] keptEnds = new long[kept];
+            long keptMaxLength = 0;
+            for (int i = 0, j = 0; i < ends.length; i++) {
+                if (ends[i] > day) {
+                    keptIds[j] = ids[i];
+                    keptStarts[j] = starts[i];
+                    keptEnds[j] = ends[i];
+                    keptMaxLength = Math.max(keptMaxLength, ends[i] - starts[i]);
+                    j++;
+                }
+            }
+            return new RoomIntervals(keptIds, keptStarts, keptEnds, keptMaxLength);
+        }
+
+        // Первый индекс, у которого start >= day
+        private int lowerBound(long day) {
+            int low = 0;
+            int high = starts.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] < day) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private int upperBound(long day) {
+            return lowerBound(day + 1);
+        }
+
+        private static long[] insert(long[] source, int position, long value) {
+            long[] result = Arrays.copyOf(source, source.length + 1);
+            System.arraycopy(source, position, result, position + 1, source.length - position);
+            result[position] = value;
+            return result;
+        }
+
+        private static long[] delete(long[] source, int position) {
+            long[] result = new long[source.length - 1];
+            System.arraycopy(source, 0, result, 0, position);
+            System.arraycopy(source, position + 1, result, position, source.length - position - 1);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package dev.folomkin.reservationsystem.reservations.availability;
+
+import java.util.List;
+
+public record RoomCalendarResponse(
+        Long roomId,
+
+        List<DateInterval> occupied,
+
+        List<DateInterval> free
+) {
+}
@@ -0,0 +1,62 @@
+package dev.folomkin.reservationsystem.reservations.availability;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+final class RoomCalendars {
+
+    private RoomCalendars() {
+    }
+
+    // Один проход по интервалам комнаты, отсортированным по startDate:
+    // пересекающиеся и смежные интервалы склеиваются, промежутки от minNights ночей - свободные окна
+    static RoomCalendarResponse build(
+            Long roomId,
+            List<ReservedInterval> sortedIntervals,
+            LocalDate from,
+            LocalDate to,
+            int minNights
+    ) {
+        List<DateInterval> occupied = new ArrayList<>();
+        List<DateInterval> free = new ArrayList<>();
+        LocalDate blockStart = null;
+        LocalDate cursor = from;
+
+        for (ReservedInterval interval : sortedIntervals) {
+            var start = max(interval.startDate(), from);
+            var end = min(interval.endDate(), to);
+            if (!start.isBefore(end)) {
+                continue;
+            }
+            if (blockStart == null || start.isAfter(cursor)) {
+                if (blockStart != null) {
+                    occupied.add(new DateInterval(blockStart, cursor));
+                }
+                addFreeWindow(free, cursor, start, minNights);
+                blockStart = start;
+            }
+            cursor = max(cursor, end);
+        }
+        if (blockStart != null) {
+            occupied.add(new DateInterval(blockStart, cursor));
+        }
+        addFreeWindow(free, cursor, to, minNights);
+        return new RoomCalendarResponse(roomId, occupied, free);
+    }
+
+    private static void addFreeWindow(List<DateInterval> free, LocalDate start, LocalDate end, int minNights) {
+        if (ChronoUnit.DAYS.between(start, end) >= minNights) {
+            free.add(new DateInterval(start, end));
+        }
+    }
+
+    private static LocalDate max(LocalDate first, LocalDate second) {
+        return first.isAfter(second) ? first : second;
+    }
+
+    private static LocalDate min(LocalDate first, LocalDate second) {
+        return first.isBefore(second) ? first : second;
+    }
+}
@@ -0,0 +1,39 @@
+package dev.folomkin.reservationsystem.reservations.events;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Доставляет события внутрипроцессным слушателям: @EventListener(ReservationEvent.class),
+// и сообщает им о догоняющей доставке: @EventListener(ReservationEventsCaughtUp.class)
+@Component
+public class ApplicationEventReservationSink implements ReservationEventSink {
+
+    private final ApplicationEventPublisher publisher;
+    private final String name;
+
+    public ApplicationEventReservationSink(
+            ApplicationEventPublisher publisher,
+            @Value("${reservation.events.instance-id}") String instanceId
+    ) {
+        this.publisher = publisher;
+        this.name = "application@" + instanceId;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void publish(List<ReservationEvent> events) {
+        events.forEach(publisher::publishEvent);
+    }
+
+    @Override
+    public void caughtUp() {
+        publisher.publishEvent(new ReservationEventsCaughtUp());
+    }
+}
@@ -0,0 +1,16 @@
+package dev.folomkin.reservationsystem.reservations.events;
+
+import dev.folomkin.reservationsystem.reservations.Reservation;
+
+import java.time.Instant;
+
+// position - смещение в потоке событий, по нему потребители продолжают чтение.
+// Доставка at-least-once: повтор узнаётся по eventId
+public record ReservationEvent(
+        Long position,
+        Long eventId,
+        ReservationEventType type,
+        Instant occurredAt,
+        Reservation reservation
+) {
+}
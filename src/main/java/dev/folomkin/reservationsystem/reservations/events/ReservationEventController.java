@@ -0,0 +1,30 @@
+package dev.folomkin.reservationsystem.reservations.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/reservation/events")
+public class ReservationEventController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationEventController.class);
+
+    private final SseReservationEventSink sseSink;
+
+    public ReservationEventController(SseReservationEventSink sseSink) {
+        this.sseSink = sseSink;
+    }
+
+    // Продолжение с позиции: Last-Event-ID при переподключении EventSource или параметр after
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId,
+            @RequestParam(name = "after", required = false) Long after
+    ) {
+        log.info("Called streamEvents, lastEventId={}, after={}", lastEventId, after);
+        return sseSink.subscribe(lastEventId != null ? lastEventId : after);
+    }
+}
@@ -0,0 +1,117 @@
+package dev.folomkin.reservationsystem.reservations.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Фоновая публикация outbox. Сначала непронумерованным событиям назначаются позиции
+// в порядке вставки строк (recorded_at по часам БД): события одной брони получают позиции
+// в том порядке, в котором произошли, на каком бы экземпляре они ни были записаны.
+// Затем каждый приёмник дочитывает события после своего сохранённого смещения.
+// Смещение двигается только после успешного publish - доставка at-least-once.
+// Приёмники внутри процесса имеют смещение на экземпляр, см. ReservationEventSink.name
+@Component
+public class ReservationEventDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationEventDispatcher.class);
+
+    private final ReservationEventRepository repository;
+    private final ReservationEventMapper mapper;
+    private final List<ReservationEventSink> sinks;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public ReservationEventDispatcher(
+            ReservationEventRepository repository,
+            ReservationEventMapper mapper,
+            List<ReservationEventSink> sinks,
+            PlatformTransactionManager transactionManager,
+            @Value("${reservation.events.dispatcher.enabled}") boolean enabled,
+            @Value("${reservation.events.dispatcher.batch-size}") int batchSize
+    ) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.sinks = sinks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${reservation.events.dispatcher.interval}")
+    public void dispatch() {
+        if (!enabled) {
+            return;
+        }
+        boolean sequenced = true;
+        try {
+            int count;
+            do {
+                count = sequence();
+            } while (count == batchSize);
+        } catch (RuntimeException e) {
+            // Уже пронумерованные события всё равно доставляются
+            log.warn("Failed to sequence reservation events", e);
+            sequenced = false;
+        }
+        for (var sink : sinks) {
+            // Без нумерации в журнале могут висеть события, которых приёмник не увидит
+            if (deliver(sink) && sequenced) {
+                sink.caughtUp();
+            }
+        }
+    }
+
+    private int sequence() {
+        Integer sequenced = transactionTemplate.execute(status -> {
+            if (!repository.tryLockSequencer()) {
+                return 0;
+            }
+            var events = repository.findUnsequenced(Limit.of(batchSize));
+            long position = repository.findMaxPosition();
+            for (var event : events) {
+                event.setPosition(++position);
+            }
+            return events.size();
+        });
+        return sequenced != null ? sequenced : 0;
+    }
+
+    // true - приёмник дочитал журнал до конца
+    private boolean deliver(ReservationEventSink sink) {
+        try {
+            long offset = repository.findOffset(sink.name()).orElseGet(() -> startOffset(sink));
+            List<ReservationEventEntity> batch;
+            do {
+                batch = repository.findAfter(offset, Limit.of(batchSize));
+                if (batch.isEmpty()) {
+                    return true;
+                }
+                sink.publish(batch.stream().map(mapper::toEvent).toList());
+                offset = batch.getLast().getPosition();
+                long delivered = offset;
+                transactionTemplate.executeWithoutResult(status -> repository.saveOffset(sink.name(), delivered));
+            } while (batch.size() == batchSize);
+            return true;
+        } catch (RuntimeException e) {
+            // Смещение не сдвинулось - пакет уйдёт в приёмник повторно на следующем запуске
+            log.warn("Failed to deliver reservation events: sink={}", sink.name(), e);
+            return false;
+        }
+    }
+
+    // Новый экземпляр начинает с текущего конца журнала, а не со всей истории
+    private long startOffset(ReservationEventSink sink) {
+        long position = repository.findMaxPosition();
+        transactionTemplate.executeWithoutResult(status -> repository.saveOffset(sink.name(), position));
+        log.info("Started reservation events sink: sink={}, position={}", sink.name(), position);
+        return position;
+    }
+}
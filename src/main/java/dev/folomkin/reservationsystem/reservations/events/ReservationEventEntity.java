@@ -0,0 +1,126 @@
+package dev.folomkin.reservationsystem.reservations.events;
+
+import dev.folomkin.reservationsystem.reservations.ReservationStatus;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Table(name = "reservation_events")
+@Entity
+public class ReservationEventEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "reservation_events_seq")
+    @SequenceGenerator(name = "reservation_events_seq", sequenceName = "reservation_events_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    @Column(name = "position")
+    private Long position;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false)
+    private ReservationEventType type;
+
+    @Column(name = "reservation_id", nullable = false)
+    private Long reservationId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDate startDate;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDate endDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ReservationStatus status;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "occurred_at", nullable = false)
+    private Instant occurredAt;
+
+    // Время вставки по часам БД (DEFAULT clock_timestamp()), задаёт порядок нумерации
+    @Column(name = "recorded_at", insertable = false, updatable = false)
+    private Instant recordedAt;
+
+    public ReservationEventEntity() {
+    }
+
+    public ReservationEventEntity(
+            ReservationEventType type,
+            Long reservationId,
+            Long userId,
+            Long roomId,
+            LocalDate startDate,
+            LocalDate endDate,
+            ReservationStatus status,
+            Long version,
+            Instant occurredAt
+    ) {
+        this.type = type;
+        this.reservationId = reservationId;
+        this.userId = userId;
+        this.roomId = roomId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.status = status;
+        this.version = version;
+        this.occurredAt = occurredAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    public void setPosition(Long position) {
+        this.position = position;
+    }
+
+    public ReservationEventType getType() {
+        return type;
+    }
+
+    public Long getReservationId() {
+        return reservationId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getRoomId() {
+        return roomId;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getOccurredAt() {
+        return occurredAt;
+    }
+}
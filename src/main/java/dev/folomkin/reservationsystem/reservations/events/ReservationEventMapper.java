@@ -0,0 +1,41 @@
+package dev.folomkin.reservationsystem.reservations.events;
+
+import dev.folomkin.reservationsystem.reservations.Reservation;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+@Component
+public class ReservationEventMapper {
+    public ReservationEvent toEvent(ReservationEventEntity entity) {
+        return new ReservationEvent(
+                entity.getPosition(),
+                entity.getId(),
+                entity.getType(),
+                entity.getOccurredAt(),
+                new Reservation(
+                        entity.getReservationId(),
+                        entity.getUserId(),
+                        entity.getRoomId(),
+                        entity.getStartDate(),
+                        entity.getEndDate(),
+                        entity.getStatus(),
+                        entity.getVersion()
+                )
+        );
+    }
+
+    public ReservationEventEntity toEntity(ReservationEventType type, Reservation reservation, Instant occurredAt) {
+        return new ReservationEventEntity(
+                type,
+                reservation.id(),
+                reservation.userId(),
+                reservation.roomId(),
+                reservation.startDate(),
+                reservation.endDate(),
+                reservation.status(),
+                reservation.version(),
+                occurredAt
+        );
+    }
+}
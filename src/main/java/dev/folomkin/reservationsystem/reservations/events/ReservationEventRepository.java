@@ -0,0 +1,40 @@
+package dev.folomkin.reservationsystem.reservations.events;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface ReservationEventRepository extends JpaRepository<ReservationEventEntity, Long> {
+
+    // Одна транзакция во всём кластере назначает позиции; ключ (int, int) не пересекается
+    // с блокировками комнат pg_advisory_xact_lock(bigint)
+    @Query(value = "SELECT pg_try_advisory_xact_lock(14, 0)", nativeQuery = true)
+    boolean tryLockSequencer();
+
+    @Query("select coalesce(max(e.position), 0) from ReservationEventEntity e")
+    long findMaxPosition();
+
+    // По времени вставки, а не по id: id выдаются блоками на экземпляр, см. V11
+    @Query("select e from ReservationEventEntity e where e.position is null order by e.recordedAt, e.id")
+    List<ReservationEventEntity> findUnsequenced(Limit limit);
+
+    @Query("select e from ReservationEventEntity e where e.position > :position order by e.position")
+    List<ReservationEventEntity> findAfter(@Param("position") long position, Limit limit);
+
+    @Query(value = "SELECT position FROM reservation_event_offsets WHERE sink = :sink", nativeQuery = true)
+    Optional<Long> findOffset(@Param("sink") String sink);
+
+    @Modifying
+    @Query(value = """
+            INSERT INTO reservation_event_offsets (sink, position)
+            VALUES (:sink, :position)
+            ON CONFLICT (sink) DO UPDATE
+            SET position = GREATEST(reservation_event_offsets.position, EXCLUDED.position)
+            """, nativeQuery = true)
+    int saveOffset(@Param("sink") String sink, @Param("position") long position);
+}
@@ -0,0 +1,19 @@
+package dev.folomkin.reservationsystem.reservations.events;
+
+import java.util.List;
+
+// Приёмник событий outbox. Диспетчер сохраняет смещение приёмника только после
+// успешного publish, поэтому исключение приводит к повторной доставке пакета
+public interface ReservationEventSink {
+
+    // Ключ смещения в reservation_event_offsets. Приёмник внутри процесса включает в него
+    // reservation.events.instance-id: иначе пакет, доставленный одним экземпляром,
+    // сдвинул бы общее смещение и слушатели остальных экземпляров его бы не получили
+    String name();
+
+    void publish(List<ReservationEvent> events);
+
+    // Приёмник получил всё, что пронумеровано к этому моменту
+    default void caughtUp() {
+    }
+}
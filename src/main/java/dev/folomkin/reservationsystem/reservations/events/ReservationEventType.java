@@ -0,0 +1,8 @@
+package dev.folomkin.reservationsystem.reservations.events;
+
+public enum ReservationEventType {
+    CREATED,
+    UPDATED,
+    APPROVED,
+    CANCELLED
+}
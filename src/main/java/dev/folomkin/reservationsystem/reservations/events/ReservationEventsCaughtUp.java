@@ -0,0 +1,6 @@
+package dev.folomkin.reservationsystem.reservations.events;
+
+// Публикуется ApplicationEventReservationSink, когда слушатели этого экземпляра
+// получили все пронумерованные события
+public record ReservationEventsCaughtUp() {
+}
@@ -0,0 +1,9 @@
+package dev.folomkin.reservationsystem.reservations.events;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class ReservationEventsConfig {
+}
@@ -0,0 +1,39 @@
+package dev.folomkin.reservationsystem.reservations.events;
+
+import dev.folomkin.reservationsystem.reservations.Reservation;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+// Событие пишется в той же транзакции, что и изменение бронирования:
+// откат изменения откатывает и событие
+@Component
+public class ReservationOutbox {
+
+    private final ReservationEventRepository repository;
+    private final ReservationEventMapper mapper;
+
+    public ReservationOutbox(ReservationEventRepository repository, ReservationEventMapper mapper) {
+        this.repository = repository;
+        this.mapper = mapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(ReservationEventType type, Reservation reservation) {
+        repository.save(mapper.toEntity(type, reservation, Instant.now()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(ReservationEventType type, List<Reservation> reservations) {
+        if (reservations.isEmpty()) {
+            return;
+        }
+        var occurredAt = Instant.now();
+        repository.saveAll(reservations.stream()
+                .map(reservation -> mapper.toEntity(type, reservation, occurredAt))
+                .toList());
+    }
+}
@@ -0,0 +1,160 @@
+package dev.folomkin.reservationsystem.reservations.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Рассылает события подписчикам SSE. Позиции идут без пропусков, поэтому подписчик,
+// увидев разрыв (переподключился с Last-Event-ID или отстал), дочитывает недостающее из таблицы.
+// Каждому подписчику пишет свой виртуальный поток из ограниченной очереди: медленный клиент
+// не задерживает диспетчер и остальных, а при переполнении очереди отключается
+@Component
+public class SseReservationEventSink implements ReservationEventSink {
+
+    private static final Logger log = LoggerFactory.getLogger(SseReservationEventSink.class);
+
+    private final ReservationEventRepository repository;
+    private final ReservationEventMapper mapper;
+    private final String name;
+    private final Duration timeout;
+    private final int replayBatchSize;
+    private final int maxReplay;
+    private final int queueCapacity;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    public SseReservationEventSink(
+            ReservationEventRepository repository,
+            ReservationEventMapper mapper,
+            @Value("${reservation.events.instance-id}") String instanceId,
+            @Value("${reservation.events.sse.timeout}") Duration timeout,
+            @Value("${reservation.events.dispatcher.batch-size}") int replayBatchSize,
+            @Value("${reservation.events.sse.max-replay}") int maxReplay,
+            @Value("${reservation.events.sse.queue-capacity}") int queueCapacity
+    ) {
+        this.repository = repository;
+        this.mapper = mapper;
+        this.name = "sse@" + instanceId;
+        this.timeout = timeout;
+        this.replayBatchSize = replayBatchSize;
+        this.maxReplay = maxReplay;
+        this.queueCapacity = queueCapacity;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void publish(List<ReservationEvent> events) {
+        subscribers.forEach(subscriber -> subscriber.offer(events));
+    }
+
+    // after = null - только новые события. Повтор ограничен max-replay событиями:
+    // до выхода из обработчика SseEmitter держит отправленное в памяти
+    public SseEmitter subscribe(Long after) {
+        long head = repository.findOffset(name).orElse(0L);
+        long position = after != null ? after : head;
+        if (head - position > maxReplay) {
+            throw new IllegalArgumentException("Cannot replay more than " + maxReplay + " events, after=" + position);
+        }
+        var subscriber = new Subscriber(new SseEmitter(timeout.toMillis()), position, head);
+        subscriber.emitter.onCompletion(subscriber::close);
+        subscriber.emitter.onTimeout(subscriber::close);
+        subscriber.emitter.onError(e -> subscriber.close());
+        subscribers.add(subscriber);
+        Thread.ofVirtual().name("sse-subscriber").start(subscriber::run);
+        log.info("SSE subscriber registered: after={}, subscribers={}", position, subscribers.size());
+        return subscriber.emitter;
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<ReservationEvent> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final long replayTarget;
+        private volatile boolean closed;
+        private volatile boolean overflowed;
+        // Меняется только потоком подписчика
+        private long position;
+
+        Subscriber(SseEmitter emitter, long position, long replayTarget) {
+            this.emitter = emitter;
+            this.position = position;
+            this.replayTarget = replayTarget;
+        }
+
+        // Поток диспетчера не ждёт клиента: клиент переподключится с Last-Event-ID и дочитает из таблицы
+        void offer(List<ReservationEvent> events) {
+            for (var event : events) {
+                if (!queue.offer(event)) {
+                    log.warn("SSE subscriber is too slow, disconnecting: position={}", position);
+                    overflowed = true;
+                    close();
+                    return;
+                }
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+        }
+
+        void run() {
+            try {
+                replayUpTo(replayTarget);
+                while (!closed) {
+                    var event = queue.poll(1, TimeUnit.SECONDS);
+                    if (event != null && event.position() > position) {
+                        replayUpTo(event.position() - 1);
+                        send(event);
+                    }
+                }
+                if (overflowed) {
+                    emitter.complete();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                close();
+                emitter.completeWithError(e);
+            }
+        }
+
+        private void replayUpTo(long target) throws IOException {
+            while (position < target && !closed) {
+                var missed = repository.findAfter(position, Limit.of(replayBatchSize));
+                if (missed.isEmpty()) {
+                    return;
+                }
+                for (var entity : missed) {
+                    if (entity.getPosition() > target) {
+                        return;
+                    }
+                    send(mapper.toEvent(entity));
+                }
+            }
+        }
+
+        private void send(ReservationEvent event) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.position()))
+                    .name(event.type().name())
+                    .data(event));
+            position = event.position();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package dev.folomkin.reservationsystem.reservations.idempotency;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+@Table(name = "reservation_idempotency_keys")
+@Entity
+public class IdempotencyKeyEntity {
+    @Id
+    @Column(name = "idempotency_key", nullable = false)
+    private String key;
+
+    @Column(name = "fingerprint", nullable = false)
+    private String fingerprint;
+
+    @Column(name = "response_body")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public IdempotencyKeyEntity() {
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.folomkin.reservationsystem.reservations.idempotency;
+
+// Ключ повторно использован с другим телом - ответ 422, без стека
+public class IdempotencyKeyMismatchException extends RuntimeException {
+
+    public IdempotencyKeyMismatchException(String key) {
+        super("Idempotency-Key " + key + " was already used with a different request body");
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
@@ -0,0 +1,39 @@
+package dev.folomkin.reservationsystem.reservations.idempotency;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyEntity, String> {
+
+    // 0 - ключ уже занят. Если его держит незакоммиченная транзакция, INSERT дожидается её завершения
+    @Modifying
+    @Query(value = """
+            INSERT INTO reservation_idempotency_keys (idempotency_key, fingerprint, created_at)
+            VALUES (:key, :fingerprint, :createdAt)
+            ON CONFLICT (idempotency_key) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(
+            @Param("key") String key,
+            @Param("fingerprint") String fingerprint,
+            @Param("createdAt") Instant createdAt
+    );
+
+    @Modifying
+    @Query("update IdempotencyKeyEntity k set k.responseBody = :responseBody where k.key = :key")
+    int saveResponse(@Param("key") String key, @Param("responseBody") String responseBody);
+
+    @Modifying
+    @Query(value = """
+            DELETE FROM reservation_idempotency_keys
+            WHERE idempotency_key IN (
+                SELECT idempotency_key FROM reservation_idempotency_keys
+                WHERE created_at < :createdBefore
+                LIMIT :limit
+            )
+            """, nativeQuery = true)
+    int deleteCreatedBefore(@Param("createdBefore") Instant createdBefore, @Param("limit") int limit);
+}
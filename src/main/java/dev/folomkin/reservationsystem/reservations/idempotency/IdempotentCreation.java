@@ -0,0 +1,10 @@
+package dev.folomkin.reservationsystem.reservations.idempotency;
+
+import dev.folomkin.reservationsystem.reservations.Reservation;
+
+// replayed = true - ответ взят из сохранённого результата, новая бронь не создавалась
+public record IdempotentCreation(
+        Reservation reservation,
+        boolean replayed
+) {
+}
@@ -0,0 +1,156 @@
+package dev.folomkin.reservationsystem.reservations.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.folomkin.reservationsystem.reservations.Reservation;
+import dev.folomkin.reservationsystem.reservations.ReservationConflictException;
+import dev.folomkin.reservationsystem.reservations.ReservationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Создание брони по Idempotency-Key. Порядок поиска: завершённые ключи в памяти,
+// запросы с тем же ключом, выполняющиеся в этом процессе, и таблица reservation_idempotency_keys,
+// строка которой вставляется в одной транзакции с бронью
+@Service
+public class ReservationIdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationIdempotencyService.class);
+
+    private static final int PURGE_BATCH_SIZE = 1_000;
+
+    private final ReservationService reservationService;
+    private final IdempotencyKeyRepository repository;
+    private final JsonMapper jsonMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Cache<String, Completed> completed;
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public ReservationIdempotencyService(
+            ReservationService reservationService,
+            IdempotencyKeyRepository repository,
+            JsonMapper jsonMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${reservation.idempotency.ttl}") Duration ttl,
+            @Value("${reservation.idempotency.cache-size}") long cacheSize
+    ) {
+        this.reservationService = reservationService;
+        this.repository = repository;
+        this.jsonMapper = jsonMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = ttl;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public IdempotentCreation createReservation(String key, Reservation reservationToCreate) {
+        var fingerprint = fingerprint(reservationToCreate);
+        var cached = completed.getIfPresent(key);
+        if (cached != null) {
+            checkFingerprint(key, fingerprint, cached.fingerprint());
+            return new IdempotentCreation(cached.reservation(), true);
+        }
+
+        var call = new InFlight(fingerprint, new CompletableFuture<>());
+        var running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            // Параллельный дубликат ждёт результат первого запроса, не занимая соединение
+            checkFingerprint(key, fingerprint, running.fingerprint());
+            return new IdempotentCreation(await(running.result()), true);
+        }
+        try {
+            var creation = createOnce(key, fingerprint, reservationToCreate);
+            completed.put(key, new Completed(fingerprint, creation.reservation()));
+            call.result().complete(creation.reservation());
+            return creation;
+        } catch (RuntimeException e) {
+            call.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${reservation.idempotency.purge-interval}")
+    public void purgeExpired() {
+        var createdBefore = Instant.now().minus(ttl);
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status ->
+                    repository.deleteCreatedBefore(createdBefore, PURGE_BATCH_SIZE));
+            purged += deleted;
+        } while (deleted == PURGE_BATCH_SIZE);
+        if (purged > 0) {
+            log.info("Purged expired idempotency keys: count={}", purged);
+        }
+    }
+
+    private IdempotentCreation createOnce(String key, String fingerprint, Reservation reservationToCreate) {
+        return transactionTemplate.execute(status -> {
+            if (repository.insertIfAbsent(key, fingerprint, Instant.now()) == 0) {
+                // Ключ закоммичен другим запросом или другим экземпляром сервиса
+                var stored = repository.findById(key).orElseThrow(
+                        () -> new ReservationConflictException("Idempotency key " + key + " has just expired, retry the request")
+                );
+                checkFingerprint(key, fingerprint, stored.getFingerprint());
+                return new IdempotentCreation(jsonMapper.readValue(stored.getResponseBody(), Reservation.class), true);
+            }
+            var created = reservationService.createReservation(reservationToCreate);
+            repository.saveResponse(key, jsonMapper.writeValueAsString(created));
+            return new IdempotentCreation(created, false);
+        });
+    }
+
+    private static Reservation await(CompletableFuture<Reservation> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void checkFingerprint(String key, String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new IdempotencyKeyMismatchException(key);
+        }
+    }
+
+    private static String fingerprint(Reservation reservation) {
+        var request = reservation.userId() + "|" + reservation.roomId() + "|"
+                + reservation.startDate() + "|" + reservation.endDate() + "|" + reservation.status();
+        try {
+            var digest = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Completed(String fingerprint, Reservation reservation) {
+    }
+
+    private record InFlight(String fingerprint, CompletableFuture<Reservation> result) {
+    }
+}
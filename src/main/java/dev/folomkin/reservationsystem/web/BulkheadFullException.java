@@ -0,0 +1,8 @@
+package dev.folomkin.reservationsystem.web;
+
+public class BulkheadFullException extends RuntimeException {
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
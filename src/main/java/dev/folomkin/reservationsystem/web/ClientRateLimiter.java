@@ -0,0 +1,60 @@
+package dev.folomkin.reservationsystem.web;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Token bucket на клиента в форме GCRA: состояние корзины - одно число, момент, когда она
+// снова станет полной. Каждый запрос сдвигает его на интервал между запросами; запрос
+// принимается, пока этот момент не дальше burst интервалов. Обновление - один CAS, без блокировок
+@Component
+public class ClientRateLimiter {
+
+    private final boolean enabled;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    public ClientRateLimiter(
+            @Value("${reservation.rate-limit.enabled}") boolean enabled,
+            @Value("${reservation.rate-limit.requests-per-second}") int requestsPerSecond,
+            @Value("${reservation.rate-limit.burst}") int burst,
+            @Value("${reservation.rate-limit.max-clients}") long maxClients
+    ) {
+        this.enabled = enabled;
+        this.intervalNanos = Duration.ofSeconds(1).toNanos() / requestsPerSecond;
+        this.burstNanos = intervalNanos * burst;
+        // Корзина простаивающего клиента полна, поэтому её можно забыть
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(Duration.ofNanos(burstNanos).plusSeconds(1))
+                .build();
+    }
+
+    // Duration.ZERO - запрос принят, иначе через сколько клиенту стоит повторить
+    public Duration tryAcquire(String client) {
+        if (!enabled) {
+            return Duration.ZERO;
+        }
+        return tryAcquire(client, System.nanoTime());
+    }
+
+    Duration tryAcquire(String client, long now) {
+        var bucket = buckets.get(client, key -> new AtomicLong(now));
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                return Duration.ofNanos(wait);
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return Duration.ZERO;
+            }
+        }
+    }
+}
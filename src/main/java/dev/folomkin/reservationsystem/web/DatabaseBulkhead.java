@@ -0,0 +1,80 @@
+package dev.folomkin.reservationsystem.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Ограничивает число одновременно выполняющихся запросов размером пула Hikari.
+// На виртуальных потоках Tomcat больше не ограничивает параллелизм, и без этого
+// тысячи запросов одновременно встают в очередь за соединением до connection-timeout
+@Component
+public class DatabaseBulkhead {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseBulkhead.class);
+
+    private static final Permit NO_PERMIT = () -> {
+    };
+
+    private final boolean enabled;
+    private final Semaphore permits;
+    private final Duration acquireTimeout;
+    private final Timer acquireWait;
+
+    public DatabaseBulkhead(
+            MeterRegistry meterRegistry,
+            @Value("${reservation.bulkhead.enabled}") boolean enabled,
+            @Value("${reservation.bulkhead.max-concurrent-calls}") int maxConcurrentCalls,
+            @Value("${reservation.bulkhead.acquire-timeout}") Duration acquireTimeout
+    ) {
+        this.enabled = enabled;
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.acquireTimeout = acquireTimeout;
+        // Очередь за соединением при включённом bulkhead стоит здесь, а не в Hikari (LoadShedder)
+        this.acquireWait = Timer.builder("reservation.bulkhead.acquire")
+                .description("Time spent waiting for database capacity")
+                .register(meterRegistry);
+        log.info("Database bulkhead: enabled={}, maxConcurrentCalls={}", enabled, maxConcurrentCalls);
+    }
+
+    public Permit acquire() {
+        if (!enabled) {
+            return NO_PERMIT;
+        }
+        boolean acquired;
+        long startedAt = System.nanoTime();
+        try {
+            acquired = permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkheadFullException("Interrupted while waiting for database capacity");
+        } finally {
+            acquireWait.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+        if (!acquired) {
+            throw new BulkheadFullException("Database capacity exhausted, retry later");
+        }
+        return permits::release;
+    }
+
+    // Без ожидания: фоновые задачи уступают соединения запросам пользователей
+    public Optional<Permit> tryAcquire() {
+        if (!enabled) {
+            return Optional.of(NO_PERMIT);
+        }
+        return permits.tryAcquire() ? Optional.of(permits::release) : Optional.empty();
+    }
+
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,100 @@
+package dev.folomkin.reservationsystem.web;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Разрешение берётся до ответа, поэтому нехватка ёмкости - всегда 503. Асинхронный запрос
+// (выгрузка через StreamingResponseBody) держит его до завершения, а не до выхода из фильтра
+@Component
+public class DatabaseBulkheadFilter extends OncePerRequestFilter {
+
+    private final DatabaseBulkhead bulkhead;
+    private final JsonMapper jsonMapper;
+    private final Duration retryAfter;
+
+    public DatabaseBulkheadFilter(
+            DatabaseBulkhead bulkhead,
+            JsonMapper jsonMapper,
+            @Value("${reservation.shedding.retry-after}") Duration retryAfter
+    ) {
+        this.bulkhead = bulkhead;
+        this.jsonMapper = jsonMapper;
+        this.retryAfter = retryAfter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/reservation");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        DatabaseBulkhead.Permit permit;
+        try {
+            permit = bulkhead.acquire();
+        } catch (BulkheadFullException e) {
+            var errorDto = new ErrorResponseDto(
+                    "Service unavailable",
+                    e.getMessage(),
+                    LocalDateTime.now()
+            );
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, RateLimitFilter.retryAfterSeconds(retryAfter));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            jsonMapper.writeValue(response.getOutputStream(), errorDto);
+            return;
+        }
+        boolean releaseOnComplete = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new ReleaseOnComplete(permit));
+                releaseOnComplete = true;
+            }
+        } finally {
+            if (!releaseOnComplete) {
+                permit.close();
+            }
+        }
+    }
+
+    // onComplete вызывается и после таймаута или ошибки асинхронной обработки
+    private record ReleaseOnComplete(DatabaseBulkhead.Permit permit) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            permit.close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
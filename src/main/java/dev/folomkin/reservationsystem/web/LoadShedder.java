@@ -0,0 +1,97 @@
+package dev.folomkin.reservationsystem.web;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Адаптивный сброс нагрузки по времени ожидания соединения: пула primary
+// (hikaricp.connections.acquire) и DatabaseBulkhead (reservation.bulkhead.acquire) - на виртуальных
+// потоках очередь стоит в bulkhead, а ожидание в Hikari остаётся около нуля. Раз в sample-interval
+// считается среднее ожидание каждого за прошедший интервал, сигнал - большее из них: пока он выше
+// порога, доля отклоняемых запросов растёт на STEP, когда ниже - убывает на STEP / 2, вдвое медленнее,
+// чем росла: после перегрузки трафик возвращается постепенно и не выбивает пул снова
+@Component
+public class LoadShedder {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadShedder.class);
+
+    private static final double STEP = 0.1;
+    private static final double MAX_RATIO = 0.9;
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final long thresholdNanos;
+
+    private final WaitSample poolWait = new WaitSample();
+    private final WaitSample bulkheadWait = new WaitSample();
+    private volatile double shedRatio;
+
+    public LoadShedder(
+            MeterRegistry meterRegistry,
+            @Value("${reservation.shedding.enabled}") boolean enabled,
+            @Value("${reservation.shedding.acquire-wait-threshold}") Duration threshold
+    ) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.thresholdNanos = threshold.toNanos();
+        Gauge.builder("reservation.shedding.ratio", this, shedder -> shedder.shedRatio)
+                .description("Share of requests rejected because of database wait time")
+                .register(meterRegistry);
+    }
+
+    public boolean shouldShed() {
+        double ratio = shedRatio;
+        return ratio > 0 && ThreadLocalRandom.current().nextDouble() < ratio;
+    }
+
+    @Scheduled(fixedRateString = "${reservation.shedding.sample-interval}")
+    public synchronized void sample() {
+        if (!enabled) {
+            return;
+        }
+        double averageWait = Math.max(
+                poolWait.average(meterRegistry.find("hikaricp.connections.acquire").tag("pool", "primary").timers()),
+                bulkheadWait.average(meterRegistry.find("reservation.bulkhead.acquire").timers())
+        );
+
+        double previous = shedRatio;
+        shedRatio = averageWait > thresholdNanos
+                ? Math.min(MAX_RATIO, previous + STEP)
+                : Math.max(0, previous - STEP / 2);
+        if ((previous == 0) != (shedRatio == 0)) {
+            log.warn("Load shedding {}: averageAcquireWaitMs={}", shedRatio > 0 ? "started" : "stopped",
+                    Math.round(averageWait / 1_000_000));
+        }
+    }
+
+    // Среднее ожидание по таймерам с прошлого замера
+    private static final class WaitSample {
+
+        private long lastCount;
+        private double lastTotalNanos;
+
+        double average(Collection<Timer> timers) {
+            long count = 0;
+            double totalNanos = 0;
+            for (Timer timer : timers) {
+                count += timer.count();
+                totalNanos += timer.totalTime(TimeUnit.NANOSECONDS);
+            }
+            long acquired = count - lastCount;
+            double average = acquired > 0 ? (totalNanos - lastTotalNanos) / acquired : 0;
+            lastCount = count;
+            lastTotalNanos = totalNanos;
+            return average;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package dev.folomkin.reservationsystem.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+// Стоит перед DatabaseBulkheadFilter: отклонённый запрос не занимает место в очереди за соединением.
+// 429 - клиент превысил свой лимит, 503 - сервис сбрасывает нагрузку (LoadShedder)
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final ClientRateLimiter rateLimiter;
+    private final LoadShedder loadShedder;
+    private final JsonMapper jsonMapper;
+    private final String clientHeader;
+    private final Set<String> apiKeys;
+    private final Duration sheddingRetryAfter;
+
+    public RateLimitFilter(
+            ClientRateLimiter rateLimiter,
+            LoadShedder loadShedder,
+            JsonMapper jsonMapper,
+            @Value("${reservation.rate-limit.client-header}") String clientHeader,
+            @Value("${reservation.rate-limit.api-keys}") List<String> apiKeys,
+            @Value("${reservation.shedding.retry-after}") Duration sheddingRetryAfter
+    ) {
+        this.rateLimiter = rateLimiter;
+        this.loadShedder = loadShedder;
+        this.jsonMapper = jsonMapper;
+        this.clientHeader = clientHeader;
+        this.apiKeys = Set.copyOf(apiKeys);
+        this.sheddingRetryAfter = sheddingRetryAfter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/reservation");
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+        var retryAfter = rateLimiter.tryAcquire(clientOf(request));
+        if (!retryAfter.isZero()) {
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, "Too many requests", "Rate limit exceeded", retryAfter);
+            return;
+        }
+        if (loadShedder.shouldShed()) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "Service unavailable",
+                    "Service is overloaded, retry later", sheddingRetryAfter);
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    // Ключ клиента - API-ключ из заголовка, только если он из выданных (reservation.rate-limit.api-keys),
+    // иначе адрес: новый ключ на каждый запрос не даёт ни обойти лимит, ни вытеснить чужие бакеты
+    private String clientOf(HttpServletRequest request) {
+        var apiKey = request.getHeader(clientHeader);
+        return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+
+    private void reject(
+            HttpServletResponse response,
+            HttpStatus status,
+            String message,
+            String detailedMessage,
+            Duration retryAfter
+    ) throws IOException {
+        var errorDto = new ErrorResponseDto(message, detailedMessage, LocalDateTime.now());
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        jsonMapper.writeValue(response.getOutputStream(), errorDto);
+    }
+
+    // Retry-After - целые секунды, округление вверх
+    static String retryAfterSeconds(Duration retryAfter) {
+        return String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+    }
+}
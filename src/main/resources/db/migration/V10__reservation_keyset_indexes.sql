@@ -0,0 +1,8 @@
+-- Keyset-пагинация поиска (searchAllByFilterAfter) идёт по (start_date, id) через reservation_history:
+-- с этими индексами каждая ветка UNION ALL читается по порядку и сливается (Merge Append),
+-- а не сканируется и сортируется целиком
+CREATE INDEX IF NOT EXISTS idx_reservations_start_date_id
+    ON reservations (start_date, id);
+
+CREATE INDEX IF NOT EXISTS idx_reservations_archive_start_date_id
+    ON reservations_archive (start_date, id);
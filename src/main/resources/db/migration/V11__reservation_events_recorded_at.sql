@@ -0,0 +1,16 @@
+-- Порядок нумерации событий. id выдаётся блоками по 50 на экземпляр и не следует времени,
+-- поэтому APPROVED могло получить позицию раньше CREATED той же брони. recorded_at ставит
+-- сама БД в момент вставки строки: событие, которое зависит от другого (одобрение после
+-- создания), вставляется после коммита предыдущего и всегда получает большее значение.
+-- Существующие строки получают время миграции без перезаписи таблицы, порядок среди них - по id
+ALTER TABLE reservation_events
+    ADD COLUMN IF NOT EXISTS recorded_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now();
+
+ALTER TABLE reservation_events
+    ALTER COLUMN recorded_at SET DEFAULT clock_timestamp();
+
+DROP INDEX IF EXISTS idx_reservation_events_unsequenced;
+
+CREATE INDEX IF NOT EXISTS idx_reservation_events_unsequenced
+    ON reservation_events (recorded_at, id)
+    WHERE position IS NULL;
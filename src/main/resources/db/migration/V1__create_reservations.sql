@@ -0,0 +1,10 @@
+-- Таблица могла быть создана раньше через ddl-auto, поэтому IF NOT EXISTS
+CREATE TABLE IF NOT EXISTS reservations
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id    BIGINT       NOT NULL,
+    room_id    BIGINT       NOT NULL,
+    start_date DATE         NOT NULL,
+    end_date   DATE         NOT NULL,
+    status     VARCHAR(255) NOT NULL
+);
@@ -0,0 +1,21 @@
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+-- Поиск по фильтрам (ReservationSpecifications)
+CREATE INDEX IF NOT EXISTS idx_reservations_room_status_dates
+    ON reservations (room_id, status, start_date, end_date);
+
+CREATE INDEX IF NOT EXISTS idx_reservations_user_start_date
+    ON reservations (user_id, start_date);
+
+-- Загрузка индекса доступности при старте: APPROVED, которые ещё не закончились
+CREATE INDEX IF NOT EXISTS idx_reservations_approved_end_date
+    ON reservations (end_date)
+    WHERE status = 'APPROVED';
+
+-- Одобренные бронирования одной комнаты не могут пересекаться.
+-- GiST-индекс ограничения используется запросом конфликтов (findConflictReservationIds).
+-- Если в таблице уже есть пересекающиеся APPROVED, их нужно разрешить до миграции.
+ALTER TABLE reservations
+    ADD CONSTRAINT reservations_approved_no_overlap
+        EXCLUDE USING gist (room_id WITH =, daterange(start_date, end_date) WITH &&)
+        WHERE (status = 'APPROVED');
@@ -0,0 +1,8 @@
+-- Переход с IDENTITY на sequence с шагом 50 (pooled-оптимизатор Hibernate, allocationSize = 50)
+CREATE SEQUENCE IF NOT EXISTS reservations_seq INCREMENT BY 50;
+
+-- Первый выделенный Hibernate диапазон должен начинаться выше существующих id
+SELECT setval('reservations_seq', COALESCE((SELECT MAX(id) FROM reservations), 0) + 50);
+
+ALTER TABLE reservations
+    ALTER COLUMN id DROP IDENTITY IF EXISTS;
@@ -0,0 +1,3 @@
+-- Версия для оптимистической блокировки и ETag
+ALTER TABLE reservations
+    ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
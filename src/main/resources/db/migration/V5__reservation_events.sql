@@ -0,0 +1,29 @@
+-- Outbox изменений бронирований. position выдаёт диспетчер в порядке публикации:
+-- id из sequence может закоммититься не по порядку, position - нет
+CREATE SEQUENCE IF NOT EXISTS reservation_events_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS reservation_events
+(
+    id             BIGINT       PRIMARY KEY,
+    position       BIGINT       UNIQUE,
+    event_type     VARCHAR(32)  NOT NULL,
+    reservation_id BIGINT       NOT NULL,
+    user_id        BIGINT       NOT NULL,
+    room_id        BIGINT       NOT NULL,
+    start_date     DATE         NOT NULL,
+    end_date       DATE         NOT NULL,
+    status         VARCHAR(255) NOT NULL,
+    version        BIGINT       NOT NULL,
+    occurred_at    TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_reservation_events_unsequenced
+    ON reservation_events (id)
+    WHERE position IS NULL;
+
+-- Последняя доставленная позиция для каждого приёмника
+CREATE TABLE IF NOT EXISTS reservation_event_offsets
+(
+    sink     VARCHAR(64) PRIMARY KEY,
+    position BIGINT      NOT NULL
+);
@@ -0,0 +1,12 @@
+-- Ключи идемпотентности POST /reservation. Строка вставляется в транзакции создания,
+-- поэтому параллельный запрос с тем же ключом ждёт её коммита на уникальном индексе
+CREATE TABLE IF NOT EXISTS reservation_idempotency_keys
+(
+    idempotency_key VARCHAR(255)             PRIMARY KEY,
+    fingerprint     VARCHAR(64)              NOT NULL,
+    response_body   TEXT,
+    created_at      TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_reservation_idempotency_keys_created_at
+    ON reservation_idempotency_keys (created_at);
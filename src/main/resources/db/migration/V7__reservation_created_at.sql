@@ -0,0 +1,9 @@
+-- Момент создания брони для истечения PENDING (ReservationExpirySweeper).
+-- Существующие строки получают время миграции и истекают через полный TTL
+ALTER TABLE reservations
+    ADD COLUMN IF NOT EXISTS created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now();
+
+-- Очистка читает только PENDING по возрастанию created_at
+CREATE INDEX IF NOT EXISTS idx_reservations_pending_created_at
+    ON reservations (created_at)
+    WHERE status = 'PENDING';
@@ -0,0 +1,34 @@
+-- Завершённые брони переносятся сюда пачками (ReservationArchiver), чтобы индексы
+-- reservations, по которым идут проверки конфликтов, покрывали только рабочий набор
+CREATE TABLE IF NOT EXISTS reservations_archive
+(
+    id          BIGINT                   PRIMARY KEY,
+    user_id     BIGINT                   NOT NULL,
+    room_id     BIGINT                   NOT NULL,
+    start_date  DATE                     NOT NULL,
+    end_date    DATE                     NOT NULL,
+    status      VARCHAR(255)             NOT NULL,
+    version     BIGINT                   NOT NULL,
+    created_at  TIMESTAMP WITH TIME ZONE NOT NULL,
+    archived_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Те же фильтры поиска, что и на reservations (V2)
+CREATE INDEX IF NOT EXISTS idx_reservations_archive_room_status_dates
+    ON reservations_archive (room_id, status, start_date, end_date);
+
+CREATE INDEX IF NOT EXISTS idx_reservations_archive_user_start_date
+    ON reservations_archive (user_id, start_date);
+
+-- Отбор кандидатов на перенос: PENDING не переносятся, их сначала отменяет ReservationExpirySweeper
+CREATE INDEX IF NOT EXISTS idx_reservations_finished_end_date
+    ON reservations (end_date)
+    WHERE status <> 'PENDING';
+
+-- Поиск и выгрузка читают обе таблицы. Условия фильтра Postgres проталкивает в каждую ветку UNION ALL
+CREATE OR REPLACE VIEW reservation_history AS
+SELECT id, user_id, room_id, start_date, end_date, status, version
+FROM reservations
+UNION ALL
+SELECT id, user_id, room_id, start_date, end_date, status, version
+FROM reservations_archive;
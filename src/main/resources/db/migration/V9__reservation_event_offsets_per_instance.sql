@@ -0,0 +1,3 @@
+-- Смещения приёмников внутри процесса хранятся на экземпляр (application@<instance-id>),
+-- общие записи больше никто не читает
+DELETE FROM reservation_event_offsets WHERE sink IN ('application', 'sse');
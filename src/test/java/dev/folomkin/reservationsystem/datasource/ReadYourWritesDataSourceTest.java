@@ -0,0 +1,76 @@
+package dev.folomkin.reservationsystem.datasource;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.TransactionExecution;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ReadYourWritesDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final ReadYourWritesGuard guard = new ReadYourWritesGuard();
+
+    private LazyConnectionDataSourceProxy dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(primaryConnection.getAutoCommit()).thenReturn(true);
+        when(primaryConnection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_READ_COMMITTED);
+        dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(new ReadYourWritesDataSource(replica, primary, guard));
+    }
+
+    @Test
+    void readOnlyConnectionsGoToReplica() throws Exception {
+        assertThat(targetOf(true)).isSameAs(replicaConnection);
+        assertThat(targetOf(false)).isSameAs(primaryConnection);
+    }
+
+    @Test
+    void requestThatWroteReadsFromPrimary() throws Exception {
+        FilterChain chain = (request, response) -> {
+            try {
+                assertThat(targetOf(true)).isSameAs(replicaConnection);
+                guard.afterCommit(writeTransaction(), null);
+                assertThat(targetOf(true)).isSameAs(primaryConnection);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        guard.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), chain);
+
+        // Флаг не переживает запрос
+        assertThat(guard.requestWrote()).isFalse();
+        assertThat(targetOf(true)).isSameAs(replicaConnection);
+    }
+
+    private Connection targetOf(boolean readOnly) throws SQLException {
+        try (var connection = dataSource.getConnection()) {
+            connection.setReadOnly(readOnly);
+            connection.createStatement();
+            return ((ConnectionProxy) connection).getTargetConnection();
+        }
+    }
+
+    private static TransactionExecution writeTransaction() {
+        var transaction = mock(TransactionExecution.class);
+        when(transaction.isReadOnly()).thenReturn(false);
+        return transaction;
+    }
+}
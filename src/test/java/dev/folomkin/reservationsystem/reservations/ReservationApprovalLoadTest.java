@@ -0,0 +1,120 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Запуск: ./mvnw test -Pload-test (нужен Postgres из application.yaml)
+@Tag("load")
+@SpringBootTest
+class ReservationApprovalLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ReservationApprovalLoadTest.class);
+
+    private static final int RESERVATIONS = 800;
+    private static final int THREADS = 32;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationRepository repository;
+
+    // Одна комната - последовательный базовый уровень: одобрения ждут блокировку комнаты.
+    // На разных комнатах они идут параллельно и должны обгонять его заметно.
+    // Первый прогон не учитывается: прогрев JIT и пула соединений
+    @Test
+    void approvalThroughputScalesWithRoomCount() throws Exception {
+        assertThat(approveConcurrently(createReservations(64))).isEmpty();
+
+        Map<Integer, Double> throughput = new TreeMap<>();
+        for (int roomCount : new int[]{1, 4, 16, 64}) {
+            var ids = createReservations(roomCount);
+
+            long started = System.nanoTime();
+            var errors = approveConcurrently(ids);
+            double seconds = (System.nanoTime() - started) / 1e9;
+
+            assertThat(errors).isEmpty();
+            throughput.put(roomCount, RESERVATIONS / seconds);
+            log.info("Approval throughput: rooms={}, approvals={}, seconds={}, approvals/s={}",
+                    roomCount, RESERVATIONS, String.format("%.2f", seconds),
+                    String.format("%.0f", RESERVATIONS / seconds));
+        }
+        assertThat(throughput.get(64)).isGreaterThan(1.5 * throughput.get(1));
+    }
+
+    @Test
+    void concurrentApprovalsOfOverlappingReservationsNeverDoubleBook() throws Exception {
+        long roomId = ThreadLocalRandom.current().nextLong(1_000_000, 1_000_000_000);
+        var startDate = LocalDate.now().plusDays(10);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            ids.add(reservationService.createReservation(
+                    new Reservation(null, (long) i, roomId, startDate.plusDays(i % 3), startDate.plusDays(5), null, null)
+            ).id());
+        }
+
+        var errors = approveConcurrently(ids);
+
+        var approved = repository.findAllById(ids).stream()
+                .filter(reservation -> reservation.getStatus() == ReservationStatus.APPROVED)
+                .sorted(Comparator.comparing(ReservationEntity::getStartDate))
+                .collect(Collectors.toList());
+        assertThat(approved).hasSize(1);
+        assertThat(errors).hasSize(THREADS - 1);
+    }
+
+    // Непересекающиеся брони, поровну распределённые по roomCount комнатам
+    private List<Long> createReservations(int roomCount) {
+        long roomBase = ThreadLocalRandom.current().nextLong(1_000_000, 1_000_000_000);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < RESERVATIONS; i++) {
+            long roomId = roomBase + i % roomCount;
+            var startDate = LocalDate.now().plusDays(1 + 2L * (i / roomCount));
+            ids.add(reservationService.createReservation(
+                    new Reservation(null, 1L, roomId, startDate, startDate.plusDays(1), null, null)
+            ).id());
+        }
+        return ids;
+    }
+
+    private List<Throwable> approveConcurrently(List<Long> ids) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = ids.stream()
+                    .<Future<?>>map(id -> executor.submit(() -> reservationService.approveReservation(id, List.of())))
+                    .toList();
+            List<Throwable> errors = new ArrayList<>();
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (Exception e) {
+                    errors.add(e.getCause());
+                }
+            }
+            return errors;
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+}
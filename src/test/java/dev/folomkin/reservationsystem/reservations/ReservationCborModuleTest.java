@@ -0,0 +1,45 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReservationCborModuleTest {
+
+    private final CBORMapper cborMapper = CBORMapper.builder().addModule(new ReservationCborModule()).build();
+
+    private final Reservation reservation = new Reservation(
+            7L, 11L, 13L, LocalDate.of(2031, 3, 1), LocalDate.of(2031, 3, 5), ReservationStatus.APPROVED, 2L
+    );
+
+    @Test
+    void writesReservationAsPositionalArrayWithEpochDays() {
+        var tree = cborMapper.readTree(cborMapper.writeValueAsBytes(reservation));
+
+        assertThat(tree.isArray()).isTrue();
+        assertThat(tree.get(0).asLong()).isEqualTo(7L);
+        assertThat(tree.get(3).asLong()).isEqualTo(reservation.startDate().toEpochDay());
+        assertThat(tree.get(5).asString()).isEqualTo("APPROVED");
+        assertThat(tree.get(6).asLong()).isEqualTo(2L);
+    }
+
+    @Test
+    void roundTripsListAndIsMuchSmallerThanJson() {
+        var listType = new TypeReference<List<Reservation>>() {
+        };
+        var reservations = List.of(reservation, reservation, reservation);
+
+        byte[] cbor = cborMapper.writerFor(listType).writeValueAsBytes(reservations);
+        byte[] json = JsonMapper.builder().build().writeValueAsBytes(reservations);
+
+        List<Reservation> read = cborMapper.readerFor(listType).readValue(cbor);
+        assertThat(read).containsExactlyElementsOf(reservations);
+        assertThat(cbor.length * 3).isLessThan(json.length);
+    }
+}
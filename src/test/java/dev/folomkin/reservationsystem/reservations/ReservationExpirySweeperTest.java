@@ -0,0 +1,88 @@
+package dev.folomkin.reservationsystem.reservations;
+
+import dev.folomkin.reservationsystem.reservations.events.ReservationEventType;
+import dev.folomkin.reservationsystem.reservations.events.ReservationOutbox;
+import dev.folomkin.reservationsystem.web.DatabaseBulkhead;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ReservationExpirySweeperTest {
+
+    private ReservationRepository repository;
+    private ReservationOutbox outbox;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ReservationRepository.class);
+        outbox = mock(ReservationOutbox.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(repository.findAllById(anyList())).thenReturn(List.of());
+    }
+
+    @Test
+    void cancelsInBatchesUntilPartialBatch() {
+        when(repository.cancelPendingCreatedBefore(any(), eq(2)))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L, 4L))
+                .thenReturn(List.of(5L));
+
+        sweeper(new DatabaseBulkhead(meterRegistry, true, 1, Duration.ZERO), 10).sweep();
+
+        verify(repository, times(3)).cancelPendingCreatedBefore(any(), eq(2));
+        verify(outbox, times(3)).recordAll(eq(ReservationEventType.CANCELLED), anyList());
+        assertThat(meterRegistry.counter("reservation.expiry.cancelled").count()).isEqualTo(5);
+    }
+
+    @Test
+    void stopsAfterMaxBatchesPerRun() {
+        when(repository.cancelPendingCreatedBefore(any(), anyInt())).thenReturn(List.of(1L, 2L));
+
+        sweeper(new DatabaseBulkhead(meterRegistry, true, 1, Duration.ZERO), 3).sweep();
+
+        verify(repository, times(3)).cancelPendingCreatedBefore(any(), anyInt());
+    }
+
+    @Test
+    void postponesWhenDatabaseIsBusy() {
+        var bulkhead = new DatabaseBulkhead(meterRegistry, true, 1, Duration.ZERO);
+
+        try (var ignored = bulkhead.acquire()) {
+            sweeper(bulkhead, 10).sweep();
+        }
+
+        verify(repository, never()).cancelPendingCreatedBefore(any(), anyInt());
+        assertThat(meterRegistry.counter("reservation.expiry.cancelled").count()).isZero();
+    }
+
+    private ReservationExpirySweeper sweeper(DatabaseBulkhead bulkhead, int maxBatches) {
+        return new ReservationExpirySweeper(
+                repository,
+                mock(ReservationMapper.class),
+                outbox,
+                new ReservationMetrics(ObservationRegistry.NOOP, meterRegistry),
+                bulkhead,
+                new ConcurrentMapCacheManager(ReservationCacheConfig.RESERVATIONS_CACHE),
+                mock(PlatformTransactionManager.class),
+                true,
+                Duration.ofHours(72),
+                2,
+                maxBatches,
+                Duration.ZERO
+        );
+    }
+}
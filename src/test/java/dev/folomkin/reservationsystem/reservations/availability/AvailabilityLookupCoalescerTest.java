@@ -0,0 +1,104 @@
+package dev.folomkin.reservationsystem.reservations.availability;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AvailabilityLookupCoalescerTest {
+
+    private static final LocalDate START = LocalDate.of(2030, 1, 1);
+    private static final LocalDate END = START.plusDays(2);
+
+    @Test
+    void concurrentIdenticalLookupsShareOneQuery() throws Exception {
+        var coalescer = new AvailabilityLookupCoalescer(new SimpleMeterRegistry(), Duration.ZERO, 0);
+        var queries = new AtomicInteger();
+        var release = new CountDownLatch(1);
+
+        List<Future<List<Long>>> results = new ArrayList<>();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++) {
+                results.add(executor.submit(() -> coalescer.find(1L, START, END, () -> {
+                    queries.incrementAndGet();
+                    await(release);
+                    return List.of(7L);
+                })));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (var result : results) {
+                assertThat(result.get()).containsExactly(7L);
+            }
+        }
+        assertThat(queries.get()).isLessThan(20);
+    }
+
+    @Test
+    void microCacheIsInvalidatedByRoom() {
+        var coalescer = new AvailabilityLookupCoalescer(new SimpleMeterRegistry(), Duration.ofMinutes(1), 100);
+        var queries = new AtomicInteger();
+        Supplier<List<Long>> lookup = () -> {
+            queries.incrementAndGet();
+            return List.of();
+        };
+
+        coalescer.find(1L, START, END, lookup);
+        coalescer.find(1L, START, END, lookup);
+        assertThat(queries.get()).isEqualTo(1);
+
+        coalescer.invalidateRoom(2L);
+        coalescer.find(1L, START, END, lookup);
+        assertThat(queries.get()).isEqualTo(1);
+
+        coalescer.invalidateRoom(1L);
+        coalescer.find(1L, START, END, lookup);
+        assertThat(queries.get()).isEqualTo(2);
+    }
+
+    @Test
+    void lookupStartedBeforeInvalidationIsNotCached() {
+        var coalescer = new AvailabilityLookupCoalescer(new SimpleMeterRegistry(), Duration.ofMinutes(1), 100);
+        var queries = new AtomicInteger();
+
+        coalescer.find(1L, START, END, () -> {
+            queries.incrementAndGet();
+            coalescer.invalidateRoom(1L);
+            return List.of();
+        });
+        coalescer.find(1L, START, END, () -> {
+            queries.incrementAndGet();
+            return List.of();
+        });
+        assertThat(queries.get()).isEqualTo(2);
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        var coalescer = new AvailabilityLookupCoalescer(new SimpleMeterRegistry(), Duration.ofMinutes(1), 100);
+
+        assertThatThrownBy(() -> coalescer.find(1L, START, END, () -> {
+            throw new IllegalStateException("database is down");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(coalescer.find(1L, START, END, List::of)).isEmpty();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package dev.folomkin.reservationsystem.reservations.availability;
+
+import dev.folomkin.reservationsystem.reservations.Reservation;
+import dev.folomkin.reservationsystem.reservations.ReservationRepository;
+import dev.folomkin.reservationsystem.reservations.ReservationStatus;
+import dev.folomkin.reservationsystem.reservations.events.ReservationEvent;
+import dev.folomkin.reservationsystem.reservations.events.ReservationEventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RoomAvailabilityIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private ReservationRepository repository;
+    private RoomAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(ReservationRepository.class);
+        when(repository.findReservedIntervalsEndingAfter(eq(ReservationStatus.APPROVED), any()))
+                .thenReturn(List.of(
+                        new ReservedInterval(1L, 10L, TODAY.plusDays(1), TODAY.plusDays(3)),
+                        new ReservedInterval(2L, 10L, TODAY.plusDays(5), TODAY.plusDays(20)),
+                        new ReservedInterval(3L, 11L, TODAY.plusDays(1), TODAY.plusDays(2))
+                ));
+        index = new RoomAvailabilityIndex(
+                repository, new AvailabilityLookupCoalescer(new SimpleMeterRegistry(), Duration.ZERO, 0), true, true, Duration.ZERO
+        );
+        index.load();
+    }
+
+    @Test
+    void findsOverlappingIntervalsOfTheSameRoom() {
+        assertThat(index.findConflictIds(10L, TODAY.plusDays(2), TODAY.plusDays(6))).containsExactly(1L, 2L);
+        assertThat(index.findConflictIds(10L, TODAY.plusDays(10), TODAY.plusDays(11))).containsExactly(2L);
+        assertThat(index.findConflictIds(11L, TODAY.plusDays(1), TODAY.plusDays(5))).containsExactly(3L);
+    }
+
+    @Test
+    void adjacentIntervalsDoNotConflict() {
+        assertThat(index.findConflictIds(10L, TODAY.plusDays(3), TODAY.plusDays(5))).isEmpty();
+        assertThat(index.findConflictIds(10L, TODAY, TODAY.plusDays(1))).isEmpty();
+        assertThat(index.findConflictIds(12L, TODAY, TODAY.plusDays(30))).isEmpty();
+    }
+
+    @Test
+    void appliesApprovals() {
+        index.add(new ReservedInterval(4L, 10L, TODAY.plusDays(3), TODAY.plusDays(5)));
+        assertThat(index.findConflictIds(10L, TODAY.plusDays(4), TODAY.plusDays(5))).containsExactly(4L);
+        assertThat(index.isFree(10L, TODAY.plusDays(3), TODAY.plusDays(5))).isFalse();
+    }
+
+    @Test
+    void answersFreeRoomsFromOccupancyBitmap() {
+        assertThat(index.isFree(10L, TODAY.plusDays(3), TODAY.plusDays(5))).isTrue();
+        assertThat(index.isFree(10L, TODAY.plusDays(2), TODAY.plusDays(4))).isFalse();
+        assertThat(index.findFreeRooms(List.of(10L, 11L, 12L), TODAY.plusDays(1), TODAY.plusDays(2)))
+                .containsExactly(12L);
+
+        index.add(new ReservedInterval(1L, 10L, TODAY.plusDays(100), TODAY.plusDays(102)));
+        assertThat(index.isFree(10L, TODAY.plusDays(1), TODAY.plusDays(3))).isTrue();
+        assertThat(index.isFree(10L, TODAY.plusDays(101), TODAY.plusDays(200))).isFalse();
+    }
+
+    @Test
+    void coversOnlyDatesAfterLoad() {
+        assertThat(index.covers(TODAY)).isTrue();
+        assertThat(index.covers(TODAY.minusDays(1))).isFalse();
+    }
+
+    @Test
+    void appliesApprovalsOfOtherInstancesAndAnswersOnlyWhileEventsAreInSync() {
+        var synced = new RoomAvailabilityIndex(
+                repository, new AvailabilityLookupCoalescer(new SimpleMeterRegistry(), Duration.ZERO, 0),
+                true, true, Duration.ofMinutes(1)
+        );
+        synced.load();
+        assertThat(synced.covers(TODAY)).isFalse();
+
+        synced.onReservationEvent(new ReservationEvent(1L, 1L, ReservationEventType.APPROVED, Instant.now(),
+                new Reservation(4L, 1L, 12L, TODAY.plusDays(3), TODAY.plusDays(5), ReservationStatus.APPROVED, 1L)));
+        synced.onEventsCaughtUp();
+
+        assertThat(synced.covers(TODAY)).isTrue();
+        assertThat(synced.isFree(12L, TODAY.plusDays(4), TODAY.plusDays(6))).isFalse();
+    }
+
+    @Test
+    void dailyRebuildDropsEndedIntervalsAndMovesCoverage() {
+        var today = new LocalDate[]{TODAY};
+        var moving = new RoomAvailabilityIndex(
+                repository, new AvailabilityLookupCoalescer(new SimpleMeterRegistry(), Duration.ZERO, 0),
+                true, true, Duration.ZERO
+        ) {
+            @Override
+            protected LocalDate today() {
+                return today[0];
+            }
+        };
+        moving.load();
+
+        today[0] = TODAY.plusDays(3);
+        moving.rebuildOccupancy();
+
+        assertThat(moving.covers(TODAY.plusDays(2))).isFalse();
+        assertThat(moving.covers(TODAY.plusDays(3))).isTrue();
+        assertThat(moving.findConflictIds(10L, TODAY.plusDays(1), TODAY.plusDays(6))).containsExactly(2L);
+        assertThat(moving.findConflictIds(11L, TODAY.plusDays(1), TODAY.plusDays(2))).isEmpty();
+
+        moving.add(new ReservedInterval(5L, 11L, TODAY.plusDays(1), TODAY.plusDays(2)));
+        assertThat(moving.findConflictIds(11L, TODAY.plusDays(1), TODAY.plusDays(2))).isEmpty();
+    }
+}
@@ -0,0 +1,64 @@
+package dev.folomkin.reservationsystem.reservations.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomCalendarsTest {
+
+    private static final LocalDate FROM = LocalDate.of(2026, 1, 1);
+
+    @Test
+    void mergesOverlappingAndAdjacentIntervals() {
+        var calendar = RoomCalendars.build(1L, List.of(
+                interval(1, 3),
+                interval(2, 5),
+                interval(5, 7),
+                interval(10, 12)
+        ), FROM, FROM.plusDays(20), 1);
+
+        assertThat(calendar.occupied()).containsExactly(dates(1, 7), dates(10, 12));
+        assertThat(calendar.free()).containsExactly(dates(0, 1), dates(7, 10), dates(12, 20));
+    }
+
+    @Test
+    void skipsFreeWindowsShorterThanMinNights() {
+        var calendar = RoomCalendars.build(1L, List.of(
+                interval(2, 4),
+                interval(5, 8)
+        ), FROM, FROM.plusDays(10), 2);
+
+        assertThat(calendar.occupied()).containsExactly(dates(2, 4), dates(5, 8));
+        assertThat(calendar.free()).containsExactly(dates(0, 2), dates(8, 10));
+    }
+
+    @Test
+    void clipsIntervalsToHorizon() {
+        var calendar = RoomCalendars.build(1L, List.of(
+                interval(-3, 2),
+                interval(8, 15)
+        ), FROM, FROM.plusDays(10), 1);
+
+        assertThat(calendar.occupied()).containsExactly(dates(0, 2), dates(8, 10));
+        assertThat(calendar.free()).containsExactly(dates(2, 8));
+    }
+
+    @Test
+    void wholeHorizonIsFreeWithoutReservations() {
+        var calendar = RoomCalendars.build(1L, List.of(), FROM, FROM.plusDays(90), 7);
+
+        assertThat(calendar.occupied()).isEmpty();
+        assertThat(calendar.free()).containsExactly(dates(0, 90));
+    }
+
+    private static ReservedInterval interval(int startOffset, int endOffset) {
+        return new ReservedInterval(null, 1L, FROM.plusDays(startOffset), FROM.plusDays(endOffset));
+    }
+
+    private static DateInterval dates(int startOffset, int endOffset) {
+        return new DateInterval(FROM.plusDays(startOffset), FROM.plusDays(endOffset));
+    }
+}
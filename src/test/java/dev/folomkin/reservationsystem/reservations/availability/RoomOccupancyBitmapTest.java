@@ -0,0 +1,51 @@
+package dev.folomkin.reservationsystem.reservations.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomOccupancyBitmapTest {
+
+    private static final LocalDate FROM = LocalDate.of(2026, 1, 1);
+
+    @Test
+    void checksNightsAcrossWordBoundaries() {
+        var bitmap = new RoomOccupancyBitmap(FROM, 1);
+        bitmap.occupy(1L, FROM.plusDays(60), FROM.plusDays(130));
+
+        assertThat(bitmap.isFree(1L, FROM, FROM.plusDays(60))).isTrue();
+        assertThat(bitmap.isFree(1L, FROM.plusDays(130), FROM.plusDays(365))).isTrue();
+        assertThat(bitmap.isFree(1L, FROM.plusDays(129), FROM.plusDays(130))).isFalse();
+        assertThat(bitmap.isFree(1L, FROM, FROM.plusDays(365))).isFalse();
+
+        bitmap.release(1L, FROM.plusDays(60), FROM.plusDays(130));
+        assertThat(bitmap.isFree(1L, FROM, FROM.plusDays(365))).isTrue();
+    }
+
+    @Test
+    void clipsIntervalsToWindow() {
+        var bitmap = new RoomOccupancyBitmap(FROM, 1);
+        bitmap.occupy(1L, FROM.minusDays(10), FROM.plusDays(1));
+        bitmap.occupy(2L, FROM.plusDays(400), FROM.plusDays(410));
+
+        assertThat(bitmap.isFree(1L, FROM, FROM.plusDays(1))).isFalse();
+        assertThat(bitmap.isFree(1L, FROM.plusDays(1), FROM.plusDays(2))).isTrue();
+        assertThat(bitmap.covers(FROM.plusDays(400), FROM.plusDays(410))).isFalse();
+        assertThat(bitmap.roomCount()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsOccupancyWhenGrowing() {
+        var bitmap = new RoomOccupancyBitmap(FROM, 1);
+        LongStream.rangeClosed(1, 1000).forEach(roomId ->
+                bitmap.occupy(roomId, FROM.plusDays(roomId % 300), FROM.plusDays(roomId % 300 + 2)));
+
+        assertThat(bitmap.roomCount()).isEqualTo(1000);
+        assertThat(bitmap.findFreeRooms(List.of(1L, 301L, 302L, 2000L), FROM.plusDays(1), FROM.plusDays(2)))
+                .containsExactly(302L, 2000L);
+    }
+}
@@ -0,0 +1,48 @@
+package dev.folomkin.reservationsystem.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientRateLimiterTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final ClientRateLimiter limiter = new ClientRateLimiter(true, 10, 5, 1000);
+
+    @Test
+    void allowsBurstThenSteadyRate() {
+        long now = 0;
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("a", now)).isZero();
+        }
+        assertThat(limiter.tryAcquire("a", now)).isEqualTo(Duration.ofMillis(100));
+
+        assertThat(limiter.tryAcquire("a", now + SECOND / 10)).isZero();
+        assertThat(limiter.tryAcquire("a", now + SECOND / 10)).isPositive();
+    }
+
+    @Test
+    void refillsAfterIdleAndKeepsClientsApart() {
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("a", 0);
+        }
+        assertThat(limiter.tryAcquire("a", 0)).isPositive();
+        assertThat(limiter.tryAcquire("b", 0)).isZero();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("a", 10 * SECOND)).isZero();
+        }
+        assertThat(limiter.tryAcquire("a", 10 * SECOND)).isPositive();
+    }
+
+    @Test
+    void disabledLimiterAcceptsEverything() {
+        var disabled = new ClientRateLimiter(false, 1, 1, 1000);
+        for (int i = 0; i < 100; i++) {
+            assertThat(disabled.tryAcquire("a")).isZero();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package dev.folomkin.reservationsystem.web;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LoadShedderTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Timer acquire = Timer.builder("hikaricp.connections.acquire").tag("pool", "primary").register(registry);
+    private final LoadShedder shedder = new LoadShedder(registry, true, Duration.ofMillis(100));
+
+    @Test
+    void shedsMoreWhileWaitStaysAboveThresholdAndRecovers() {
+        for (int i = 0; i < 3; i++) {
+            acquire.record(Duration.ofMillis(300));
+            shedder.sample();
+        }
+        assertThat(ratio()).isCloseTo(0.3, within(1e-9));
+
+        acquire.record(Duration.ofMillis(5));
+        shedder.sample();
+        assertThat(ratio()).isCloseTo(0.25, within(1e-9));
+
+        for (int i = 0; i < 10; i++) {
+            shedder.sample();
+        }
+        assertThat(ratio()).isZero();
+        assertThat(shedder.shouldShed()).isFalse();
+    }
+
+    @Test
+    void shedsOnBulkheadWaitAndIgnoresReplicaPool() {
+        var replica = Timer.builder("hikaricp.connections.acquire").tag("pool", "replica").register(registry);
+        replica.record(Duration.ofMillis(500));
+        shedder.sample();
+        assertThat(ratio()).isZero();
+
+        Timer.builder("reservation.bulkhead.acquire").register(registry).record(Duration.ofMillis(300));
+        acquire.record(Duration.ofMillis(1));
+        shedder.sample();
+        assertThat(ratio()).isCloseTo(0.1, within(1e-9));
+    }
+
+    private double ratio() {
+        return registry.get("reservation.shedding.ratio").gauge().value();
+    }
+}
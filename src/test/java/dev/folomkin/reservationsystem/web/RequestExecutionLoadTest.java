@@ -0,0 +1,123 @@
+package dev.folomkin.reservationsystem.web;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Сравнение режимов выполнения запросов: платформенные потоки Tomcat и виртуальные потоки
+// с bulkhead по размеру пула. Запуск: ./mvnw test -Pload-test (нужен Postgres из application.yaml)
+@Tag("load")
+class RequestExecutionLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestExecutionLoadTest.class);
+
+    private static final int CLIENTS = 1_000;
+    private static final Duration DURATION = Duration.ofSeconds(20);
+
+    @Nested
+    @SpringBootTest(
+            webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {
+                    "spring.threads.virtual.enabled=false",
+                    // Нагрузка идёт с одного адреса, лимит клиента исказил бы замер
+                    "reservation.rate-limit.enabled=false",
+                    "reservation.shedding.enabled=false"
+            }
+    )
+    class PlatformThreads {
+
+        @LocalServerPort
+        private int port;
+
+        @Test
+        void measureLatencyAndThroughput() throws Exception {
+            runLoad("platform threads", port);
+        }
+    }
+
+    @Nested
+    @SpringBootTest(
+            webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+            properties = {
+                    "spring.threads.virtual.enabled=true",
+                    "reservation.rate-limit.enabled=false",
+                    "reservation.shedding.enabled=false"
+            }
+    )
+    class VirtualThreads {
+
+        @LocalServerPort
+        private int port;
+
+        @Test
+        void measureLatencyAndThroughput() throws Exception {
+            runLoad("virtual threads", port);
+        }
+    }
+
+    private static void runLoad(String mode, int port) throws Exception {
+        var client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/reservation?pageSize=20"))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        var latencies = new ConcurrentLinkedQueue<Long>();
+        var failures = new AtomicLong();
+        long deadline = System.nanoTime() + DURATION.toNanos();
+
+        long started = System.nanoTime();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < CLIENTS; i++) {
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long requestStarted = System.nanoTime();
+                        try {
+                            var response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() == 200) {
+                                latencies.add(System.nanoTime() - requestStarted);
+                            } else {
+                                failures.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        assertThat(sorted).isNotEmpty();
+        log.info("Load result [{}]: clients={}, rps={}, p50={}ms, p99={}ms, failures={}",
+                mode,
+                CLIENTS,
+                String.format("%.0f", sorted.length / seconds),
+                percentileMillis(sorted, 0.50),
+                percentileMillis(sorted, 0.99),
+                failures.get());
+    }
+
+    private static String percentileMillis(long[] sorted, double percentile) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return String.format("%.1f", sorted[Math.max(index, 0)] / 1e6);
+    }
+}